@@ -0,0 +1,706 @@
+/**
+ * *****************************************************************************
+ * Copyright (C) 2024 ELIXIR ES, Spanish National Bioinformatics Institute (INB)
+ * and Barcelona Supercomputing Center (BSC)
+ *
+ * Modifications to the initial code base are copyright of their respective
+ * authors, or their employers as appropriate.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *****************************************************************************
+ */
+
+
+package es.bsc.inb.ga4gh.beacon.validator;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.json.Json;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonObjectBuilder;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonValue;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The embeddable synthetic Beacon v2 served by the JDK HTTP server.
+ * 
+ * The Beacon generates the metadata endpoints (/info, /map, /configuration, 
+ * /entry_types, /filtering_terms), the entity schemas and the entry endpoints 
+ * (root, single entry and related ones) according to the configuration.
+ * Entry endpoints may inject latency, errors, invalid records and slow response bodies.
+ * 
+ * @author Dmitry Repchevsky
+ */
+
+public class SyntheticBeacon implements AutoCloseable {
+    
+    public final static String API = "/api";
+    public final static int DEFAULT_LIMIT = 10;
+
+    private final static String[] ENTRY_TYPES = {"individual", "biosample", 
+        "genomicVariant", "run", "analysis", "dataset", "cohort"};
+    private final static String[] PATHS = {"individuals", "biosamples", 
+        "g_variants", "runs", "analyses", "datasets", "cohorts"};
+
+    private final static int CHUNK_SIZE = 8192;
+    
+    // approximate size of the generated record attribute
+    private final static int ATTRIBUTE_SIZE = 48;
+
+    private final static String HELP = 
+            """
+            synthetic-beacon [-p port] [--entry-types n] [--records n] ...
+            parameters:
+              -h (--help)                - this help message
+              -p (--port)                - server port (default 8080)
+                 (--entry-types)         - number of entry types (default 3)
+                 (--related-endpoints)   - number of related endpoints per entry type (default 2)
+                 (--records)             - number of records per entry type (default 100)
+                 (--record-size)         - approximate record size in bytes (default 1024)
+                 (--threads)             - number of server threads (default 16)
+                 (--latency)             - delay before every response in milliseconds (default 0)
+                 (--error-rate)          - ratio of failed entry endpoints' requests (default 0.0)
+                 (--error-status)        - HTTP status of failed requests (default 500)
+                 (--invalid-record-rate) - ratio of records invalid against the schema (default 0.0)
+                 (--slow-body-rate)      - ratio of slow entry endpoints' responses (default 0.0)
+                 (--slow-body-bandwidth) - slow responses bandwidth in bytes per second (default 65536)
+                 (--seed)                - generated content seed (default 0)
+            """;
+
+    private final SyntheticBeaconConfiguration configuration;
+    
+    private final AtomicLong requests;
+    private final AtomicLong errors;
+    private final AtomicInteger active;
+    private final AtomicInteger max_active;
+    
+    private HttpServer server;
+    private ExecutorService executor;
+    private String endpoint;
+    
+    private Map<String, byte[]> documents;
+    private Map<String, Integer> paths;
+
+    public SyntheticBeacon(SyntheticBeaconConfiguration configuration) {
+        this.configuration = configuration;
+        
+        requests = new AtomicLong();
+        errors = new AtomicLong();
+        active = new AtomicInteger();
+        max_active = new AtomicInteger();
+    }
+    
+    /**
+     * Starts the Beacon on a random loopback port.
+     * 
+     * @return the Beacon API endpoint
+     * 
+     * @throws IOException 
+     */
+    public String start() throws IOException {
+        return start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    }
+
+    /**
+     * Starts the Beacon.
+     * 
+     * @param address the server address
+     * 
+     * @return the Beacon API endpoint
+     * 
+     * @throws IOException 
+     */
+    public synchronized String start(InetSocketAddress address) throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("synthetic beacon is already started");
+        }
+        
+        server = HttpServer.create(address, 0);
+
+        final InetSocketAddress bound = server.getAddress();
+        final String host = bound.getAddress().isAnyLocalAddress() 
+                ? "localhost" : bound.getAddress().getHostAddress();
+        endpoint = String.format("http://%s:%d%s", host.contains(":") 
+                ? "[" + host + "]" : host, bound.getPort(), API);
+
+        paths = new HashMap();
+        for (int i = 0, n = configuration.getEntryTypes(); i < n; i++) {
+            paths.put(getPath(i), i);
+        }
+        documents = generateDocuments();
+
+        executor = Executors.newFixedThreadPool(configuration.getThreads());
+        server.setExecutor(executor);
+        server.createContext(API, this::handle);
+        server.start();
+        
+        return endpoint;
+    }
+
+    /**
+     * @return the Beacon API endpoint (e.g. 'http://127.0.0.1:8080/api')
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @return the number of received requests
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * @return the number of injected errors
+     */
+    public long getErrors() {
+        return errors.get();
+    }
+
+    /**
+     * @return the maximum number of entry endpoints' requests served concurrently
+     */
+    public int getMaxActiveRequests() {
+        return max_active.get();
+    }
+
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+        }
+    }
+    
+    @Override
+    public void close() {
+        stop();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            final Duration latency = configuration.getLatency();
+            if (!latency.isZero()) {
+                TimeUnit.NANOSECONDS.sleep(latency.toNanos());
+            }
+
+            final String path = exchange.getRequestURI().getPath().substring(API.length());
+            final byte[] document = documents.get(path.isEmpty() || "/".equals(path) ? "/info" : path);
+            if (document != null) {
+                send(exchange, 200, document, false);
+            } else {
+                handleEntries(exchange, path);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Serves the entry endpoints: '/{entries}', '/{entries}/{id}' and 
+     * '/{entries}/{id}/{related_entries}'.
+     */
+    private void handleEntries(HttpExchange exchange, String path) 
+            throws IOException, InterruptedException {
+
+        max_active.accumulateAndGet(active.incrementAndGet(), Math::max);
+        try {
+            serveEntries(exchange, path);
+        } finally {
+            active.decrementAndGet();
+        }
+    }
+
+    private void serveEntries(HttpExchange exchange, String path) 
+            throws IOException, InterruptedException {
+
+        final String[] segments = path.replaceFirst("^/", "").split("/");
+        final Integer type = paths.get(segments[0]);
+        if (type == null || segments.length > 3) {
+            send(exchange, 404, errorResponse(404, "not found: " + path), false);
+            return;
+        }
+
+        // entry type of the returned records
+        final int returned = segments.length == 3 ? paths.getOrDefault(segments[2], -1) : type;
+        if (returned < 0 || 
+            (segments.length == 3 && getIndex(type, segments[1]) < 0)) {
+            send(exchange, 404, errorResponse(404, "not found: " + path), false);
+            return;
+        }
+
+        final byte[] body = exchange.getRequestBody().readAllBytes();
+
+        // faults depend only on the request, so they are repeatable
+        final SplittableRandom random = new SplittableRandom(configuration.getSeed() ^ 
+                (exchange.getRequestMethod() + exchange.getRequestURI() + 
+                 new String(body, StandardCharsets.UTF_8)).hashCode());
+        
+        if (random.nextDouble() < configuration.getErrorRate()) {
+            errors.incrementAndGet();
+            final int status = configuration.getErrorStatus();
+            send(exchange, status, errorResponse(status, "synthetic error"), false);
+            return;
+        }
+        final boolean slow = random.nextDouble() < configuration.getSlowBodyRate();
+
+        final long[] pagination = getPagination(exchange, body);
+        final long skip = pagination[0];
+        final long limit = pagination[1];
+
+        final List<JsonObject> records = new ArrayList();
+        final long total;
+        if (segments.length == 2) {
+            final long index = getIndex(type, segments[1]);
+            total = index < 0 ? 0 : 1;
+            if (index >= 0 && skip == 0 && limit > 0) {
+                records.add(generateRecord(type, index));
+            }
+        } else {
+            total = configuration.getRecords();
+            for (long i = skip, n = Math.min(total, skip + limit); i < n; i++) {
+                records.add(generateRecord(returned, i));
+            }
+        }
+        
+        send(exchange, 200, resultsetsResponse(returned, skip, limit, total, records), slow);
+    }
+
+    /**
+     * @return 'skip' and 'limit' from either the POST request or the query parameters
+     */
+    private long[] getPagination(HttpExchange exchange, byte[] body) {
+        long skip = 0;
+        long limit = DEFAULT_LIMIT;
+        
+        if (body.length > 0) {
+            try (JsonReader reader = Json.createReader(new ByteArrayInputStream(body))) {
+                final JsonValue query = reader.readObject().get("query");
+                if (query instanceof JsonObject q && 
+                    q.get("pagination") instanceof JsonObject pagination) {
+                    skip = pagination.getJsonNumber("skip") == null 
+                            ? skip : pagination.getJsonNumber("skip").longValue();
+                    limit = pagination.getJsonNumber("limit") == null 
+                            ? limit : pagination.getJsonNumber("limit").longValue();
+                }
+            } catch (Exception ex) {}
+        } else {
+            final String query = exchange.getRequestURI().getRawQuery();
+            if (query != null) {
+                for (String param : query.split("&")) {
+                    final String[] pair = param.split("=", 2);
+                    if (pair.length == 2) {
+                        try {
+                            final long value = Long.parseLong(URLDecoder.decode(pair[1], StandardCharsets.UTF_8));
+                            switch(pair[0]) {
+                                case "skip" -> skip = value;
+                                case "limit" -> limit = value;
+                            }
+                        } catch (NumberFormatException ex) {}
+                    }
+                }
+            }
+        }
+        
+        return new long[] {Math.max(0, skip), Math.max(0, limit)};
+    }
+
+    /**
+     * @return the index of the record with the identifier or -1 if not found
+     */
+    private long getIndex(int type, String id) {
+        final String prefix = getEntryType(type) + "-";
+        if (id.startsWith(prefix)) {
+            try {
+                final long index = Long.parseLong(id.substring(prefix.length()));
+                if (index >= 0 && index < configuration.getRecords()) {
+                    return index;
+                }
+            } catch (NumberFormatException ex) {}
+        }
+        return -1;
+    }
+
+    private void send(HttpExchange exchange, int code, byte[] body, boolean slow) 
+            throws IOException, InterruptedException {
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        if (!slow || body.length == 0) {
+            exchange.sendResponseHeaders(code, body.length == 0 ? -1 : body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } else {
+            // chunked response with limited bandwidth
+            final long bandwidth = configuration.getSlowBodyBandwidth();
+            final int chunk = (int)Math.min(CHUNK_SIZE, bandwidth);
+            exchange.sendResponseHeaders(code, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                for (int off = 0; off < body.length; off += chunk) {
+                    out.write(body, off, Math.min(chunk, body.length - off));
+                    out.flush();
+                    TimeUnit.MILLISECONDS.sleep(chunk * 1000L / bandwidth);
+                }
+            }
+        }
+    }
+
+    private String getEntryType(int type) {
+        return type < ENTRY_TYPES.length ? ENTRY_TYPES[type] : "entryType" + type;
+    }
+
+    private String getPath(int type) {
+        return type < PATHS.length ? PATHS[type] : "entries" + type;
+    }
+
+    private String getSchemaURL(int type) {
+        return endpoint + "/schemas/" + getEntryType(type) + ".json";
+    }
+
+    /**
+     * Generates metadata documents and entity schemas.
+     * 
+     * @return the map of documents by their paths
+     */
+    private Map<String, byte[]> generateDocuments() {
+        final Map<String, byte[]> docs = new TreeMap();
+        
+        final JsonArrayBuilder returned_schemas = Json.createArrayBuilder();
+        final JsonObjectBuilder entry_types = Json.createObjectBuilder();
+        final JsonObjectBuilder endpoint_sets = Json.createObjectBuilder();
+        
+        for (int i = 0, n = configuration.getEntryTypes(); i < n; i++) {
+            final String entry_type = getEntryType(i);
+            final String root = endpoint + "/" + getPath(i);
+
+            returned_schemas.add(Json.createObjectBuilder()
+                    .add("entityType", entry_type)
+                    .add("schema", getSchemaURL(i)));
+
+            entry_types.add(entry_type, Json.createObjectBuilder()
+                    .add("id", entry_type)
+                    .add("name", entry_type)
+                    .add("ontologyTermForThisType", Json.createObjectBuilder()
+                        .add("id", String.format("NCIT:C%05d", i))
+                        .add("label", entry_type))
+                    .add("partOfSpecification", "Beacon v2.0.0")
+                    .add("defaultSchema", Json.createObjectBuilder()
+                        .add("id", "synthetic-" + entry_type + "-v2.0.0")
+                        .add("name", "Synthetic " + entry_type + " schema")
+                        .add("referenceToSchemaDefinition", getSchemaURL(i))
+                        .add("schemaVersion", "v2.0.0")));
+
+            final JsonObjectBuilder related = Json.createObjectBuilder();
+            for (int j = 1, m = Math.min(configuration.getRelatedEndpoints(), n - 1); j <= m; j++) {
+                final int other = (i + j) % n;
+                related.add(getEntryType(other), Json.createObjectBuilder()
+                        .add("returnedEntryType", getEntryType(other))
+                        .add("url", root + "/{id}/" + getPath(other)));
+            }
+
+            endpoint_sets.add(entry_type, Json.createObjectBuilder()
+                    .add("entryType", entry_type)
+                    .add("rootUrl", root)
+                    .add("singleEntryUrl", root + "/{id}")
+                    .add("endpoints", related));
+            
+            docs.put("/schemas/" + entry_type + ".json", bytes(generateSchema()));
+        }
+        
+        final JsonObject entry_types_object = entry_types.build();
+
+        docs.put("/info", bytes(Json.createObjectBuilder()
+                .add("meta", meta("info", returned_schemas.build()))
+                .add("response", Json.createObjectBuilder()
+                    .add("id", "es.bsc.inb.synthetic")
+                    .add("name", "Synthetic Beacon")
+                    .add("apiVersion", "v2.0.0")
+                    .add("environment", "test")
+                    .add("description", "Synthetic Beacon for the validator testing")
+                    .add("version", "v2.0.0")
+                    .add("organization", Json.createObjectBuilder()
+                        .add("id", "BSC")
+                        .add("name", "Barcelona Supercomputing Center")))
+                .build()));
+
+        docs.put("/map", bytes(Json.createObjectBuilder()
+                .add("meta", meta("map", null))
+                .add("response", Json.createObjectBuilder()
+                    .add("$schema", "https://raw.githubusercontent.com/ga4gh-beacon/beacon-v2/main/framework/json/configuration/beaconMapSchema.json")
+                    .add("endpointSets", endpoint_sets))
+                .build()));
+        
+        docs.put("/configuration", bytes(Json.createObjectBuilder()
+                .add("meta", meta("configuration", null))
+                .add("response", Json.createObjectBuilder()
+                    .add("$schema", "https://raw.githubusercontent.com/ga4gh-beacon/beacon-v2/main/framework/json/configuration/beaconConfigurationSchema.json")
+                    .add("maturityAttributes", Json.createObjectBuilder()
+                        .add("productionStatus", "DEV"))
+                    .add("securityAttributes", Json.createObjectBuilder()
+                        .add("defaultGranularity", "record")
+                        .add("securityLevels", Json.createArrayBuilder().add("PUBLIC")))
+                    .add("entryTypes", entry_types_object))
+                .build()));
+
+        docs.put("/entry_types", bytes(Json.createObjectBuilder()
+                .add("meta", meta("entryType", null))
+                .add("response", Json.createObjectBuilder()
+                    .add("entryTypes", entry_types_object))
+                .build()));
+
+        final JsonArrayBuilder terms = Json.createArrayBuilder();
+        for (int i = 0; i < 10; i++) {
+            terms.add(Json.createObjectBuilder()
+                    .add("type", "ontology")
+                    .add("id", String.format("NCIT:C%05d", i))
+                    .add("label", "term " + i));
+        }
+        docs.put("/filtering_terms", bytes(Json.createObjectBuilder()
+                .add("meta", meta("filteringTerm", null))
+                .add("response", Json.createObjectBuilder()
+                    .add("filteringTerms", terms))
+                .build()));
+
+        return docs;
+    }
+    
+    private JsonObject meta(String entity_type, JsonValue returned_schemas) {
+        return Json.createObjectBuilder()
+                .add("beaconId", "es.bsc.inb.synthetic")
+                .add("apiVersion", "v2.0.0")
+                .add("returnedSchemas", returned_schemas != null ? returned_schemas :
+                    Json.createArrayBuilder().add(Json.createObjectBuilder()
+                        .add("entityType", entity_type)
+                        .add("schema", "beacon-" + entity_type + "-v2.0.0")).build())
+                .build();
+    }
+
+    private JsonObject generateSchema() {
+        final JsonObjectBuilder attribute = Json.createObjectBuilder()
+                .add("type", "object")
+                .add("properties", Json.createObjectBuilder()
+                    .add("id", Json.createObjectBuilder()
+                        .add("type", "string")
+                        .add("pattern", "^\\w[^:]+:.+$"))
+                    .add("label", Json.createObjectBuilder()
+                        .add("type", "string")))
+                .add("required", Json.createArrayBuilder().add("id"));
+
+        return Json.createObjectBuilder()
+                .add("$schema", "https://json-schema.org/draft/2020-12/schema")
+                .add("type", "object")
+                .add("properties", Json.createObjectBuilder()
+                    .add("id", Json.createObjectBuilder().add("type", "string"))
+                    .add("info", Json.createObjectBuilder().add("type", "object"))
+                    .add("attributes", Json.createObjectBuilder()
+                        .add("type", "array")
+                        .add("items", attribute)))
+                .add("required", Json.createArrayBuilder().add("id"))
+                .build();
+    }
+
+    /**
+     * Generates the record. Records are the same for the same seed.
+     * Attributes' identifiers of the invalid records lack the ontology prefix.
+     */
+    private JsonObject generateRecord(int type, long index) {
+        final long seed = configuration.getSeed() * 31 + type * 1_000_003L + index;
+        final SplittableRandom random = new SplittableRandom(seed);
+        
+        // separate generator keeps the valid records unchanged
+        final boolean invalid = configuration.getInvalidRecordRate() > 0 && 
+                new SplittableRandom(~seed).nextDouble() < configuration.getInvalidRecordRate();
+
+        final JsonArrayBuilder attributes = Json.createArrayBuilder();
+        for (int i = 0, n = Math.max(1, configuration.getRecordSize() / ATTRIBUTE_SIZE); i < n; i++) {
+            attributes.add(Json.createObjectBuilder()
+                    .add("id", String.format(invalid ? "C%05d" : "NCIT:C%05d", random.nextInt(100000)))
+                    .add("label", String.format("attribute %d", i)));
+        }
+        
+        return Json.createObjectBuilder()
+                .add("id", String.format("%s-%d", getEntryType(type), index))
+                .add("info", Json.createObjectBuilder().add("synthetic", true))
+                .add("attributes", attributes)
+                .build();
+    }
+
+    private byte[] resultsetsResponse(int type, long skip, long limit, long total, 
+            List<JsonObject> records) {
+
+        final JsonArrayBuilder results = Json.createArrayBuilder();
+        for (JsonObject record : records) {
+            results.add(record);
+        }
+
+        return bytes(Json.createObjectBuilder()
+            .add("meta", Json.createObjectBuilder()
+                .add("beaconId", "es.bsc.inb.synthetic")
+                .add("apiVersion", "v2.0.0")
+                .add("returnedGranularity", "record")
+                .add("receivedRequestSummary", Json.createObjectBuilder()
+                    .add("apiVersion", "v2.0.0")
+                    .add("requestedSchemas", Json.createArrayBuilder())
+                    .add("pagination", Json.createObjectBuilder()
+                        .add("skip", skip).add("limit", limit))
+                    .add("requestedGranularity", "record"))
+                .add("returnedSchemas", Json.createArrayBuilder()
+                    .add(Json.createObjectBuilder()
+                        .add("entityType", getEntryType(type))
+                        .add("schema", getSchemaURL(type)))))
+            .add("responseSummary", Json.createObjectBuilder()
+                .add("exists", total > 0)
+                .add("numTotalResults", total))
+            .add("response", Json.createObjectBuilder()
+                .add("resultSets", Json.createArrayBuilder()
+                    .add(Json.createObjectBuilder()
+                        .add("id", "synthetic")
+                        .add("setType", "dataset")
+                        .add("exists", !records.isEmpty())
+                        .add("resultsCount", records.size())
+                        .add("results", results))))
+            .build());
+    }
+
+    private byte[] errorResponse(int code, String message) {
+        return bytes(Json.createObjectBuilder()
+                .add("meta", Json.createObjectBuilder()
+                    .add("beaconId", "es.bsc.inb.synthetic")
+                    .add("apiVersion", "v2.0.0"))
+                .add("error", Json.createObjectBuilder()
+                    .add("errorCode", code)
+                    .add("errorMessage", message))
+                .build());
+    }
+
+    private static byte[] bytes(JsonValue value) {
+        return value.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static void main(String[] args) throws IOException {
+        final Map<String, List<String>> params = parameters(args);
+        
+        if (params.containsKey("-h") || params.containsKey("--help")) {
+            System.out.println(HELP);
+            return;
+        }
+
+        final SyntheticBeaconConfiguration configuration = new SyntheticBeaconConfiguration();
+
+        String value;
+        if ((value = parameter(params, null, "--entry-types")) != null) {
+            configuration.setEntryTypes(Integer.parseInt(value));
+        }
+        if ((value = parameter(params, null, "--related-endpoints")) != null) {
+            configuration.setRelatedEndpoints(Integer.parseInt(value));
+        }
+        if ((value = parameter(params, null, "--records")) != null) {
+            configuration.setRecords(Integer.parseInt(value));
+        }
+        if ((value = parameter(params, null, "--record-size")) != null) {
+            configuration.setRecordSize(Integer.parseInt(value));
+        }
+        if ((value = parameter(params, null, "--threads")) != null) {
+            configuration.setThreads(Integer.parseInt(value));
+        }
+        if ((value = parameter(params, null, "--latency")) != null) {
+            configuration.setLatency(Duration.ofMillis(Long.parseLong(value)));
+        }
+        if ((value = parameter(params, null, "--error-rate")) != null) {
+            configuration.setErrorRate(Double.parseDouble(value));
+        }
+        if ((value = parameter(params, null, "--error-status")) != null) {
+            configuration.setErrorStatus(Integer.parseInt(value));
+        }
+        if ((value = parameter(params, null, "--invalid-record-rate")) != null) {
+            configuration.setInvalidRecordRate(Double.parseDouble(value));
+        }
+        if ((value = parameter(params, null, "--slow-body-rate")) != null) {
+            configuration.setSlowBodyRate(Double.parseDouble(value));
+        }
+        if ((value = parameter(params, null, "--slow-body-bandwidth")) != null) {
+            configuration.setSlowBodyBandwidth(Long.parseLong(value));
+        }
+        if ((value = parameter(params, null, "--seed")) != null) {
+            configuration.setSeed(Long.parseLong(value));
+        }
+
+        final String port = parameter(params, "-p", "--port");
+        
+        final SyntheticBeacon beacon = new SyntheticBeacon(configuration);
+        System.out.println(beacon.start(new InetSocketAddress(
+                port == null ? 8080 : Integer.parseInt(port))));
+    }
+    
+    private static String parameter(Map<String, List<String>> params, 
+            String name, String long_name) {
+        List<String> values = name == null ? null : params.get(name);
+        if (values == null) {
+            values = params.get(long_name);
+        }
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    private static Map<String, List<String>> parameters(String[] args) {
+        TreeMap<String, List<String>> parameters = new TreeMap();        
+        List<String> values = null;
+        for (String arg : args) {
+            switch(arg) {
+                case "-h", "--help", "-p", "--port", "--entry-types", 
+                     "--related-endpoints", "--records", "--record-size", 
+                     "--threads", "--latency", "--error-rate", "--error-status", 
+                     "--invalid-record-rate", "--slow-body-rate", 
+                     "--slow-body-bandwidth", "--seed" -> {
+                    values = parameters.get(arg);
+                    if (values == null) {
+                        values = new ArrayList();
+                        parameters.put(arg, values);
+                    }
+                }
+                default -> {
+                    if (values != null) {
+                        values.add(arg);
+                    }
+                }
+            }
+        }
+        return parameters;
+    }
+}
@@ -0,0 +1,199 @@
+/**
+ * *****************************************************************************
+ * Copyright (C) 2024 ELIXIR ES, Spanish National Bioinformatics Institute (INB)
+ * and Barcelona Supercomputing Center (BSC)
+ *
+ * Modifications to the initial code base are copyright of their respective
+ * authors, or their employers as appropriate.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *****************************************************************************
+ */
+
+
+package es.bsc.inb.ga4gh.beacon.validator;
+
+import java.time.Duration;
+
+/**
+ * The configuration of the synthetic Beacon.
+ * 
+ * All generated content and injected faults depend only on the configuration,
+ * so the same configuration always produces the same Beacon.
+ * 
+ * @author Dmitry Repchevsky
+ */
+
+public class SyntheticBeaconConfiguration {
+    
+    public final static int DEFAULT_ENTRY_TYPES = 3;
+    public final static int DEFAULT_RELATED_ENDPOINTS = 2;
+    public final static int DEFAULT_RECORDS = 100;
+    public final static int DEFAULT_RECORD_SIZE = 1024;
+    public final static int DEFAULT_THREADS = 16;
+    public final static long DEFAULT_SLOW_BODY_BANDWIDTH = 64 * 1024;
+    public final static int DEFAULT_ERROR_STATUS = 500;
+
+    private int entry_types = DEFAULT_ENTRY_TYPES;
+    private int related_endpoints = DEFAULT_RELATED_ENDPOINTS;
+    private int records = DEFAULT_RECORDS;
+    private int record_size = DEFAULT_RECORD_SIZE;
+    private int threads = DEFAULT_THREADS;
+    
+    private Duration latency = Duration.ZERO;
+    private double error_rate;
+    private int error_status = DEFAULT_ERROR_STATUS;
+    private double invalid_record_rate;
+    private double slow_body_rate;
+    private long slow_body_bandwidth = DEFAULT_SLOW_BODY_BANDWIDTH;
+    
+    private long seed;
+
+    public int getEntryTypes() {
+        return entry_types;
+    }
+    
+    /**
+     * @param entry_types the number of entry types (and endpoint sets)
+     */
+    public void setEntryTypes(int entry_types) {
+        this.entry_types = Math.max(1, entry_types);
+    }
+
+    public int getRelatedEndpoints() {
+        return related_endpoints;
+    }
+
+    /**
+     * @param related_endpoints the number of related endpoints of every endpoint set
+     */
+    public void setRelatedEndpoints(int related_endpoints) {
+        this.related_endpoints = Math.max(0, related_endpoints);
+    }
+
+    public int getRecords() {
+        return records;
+    }
+
+    /**
+     * @param records the number of records of every entry type
+     */
+    public void setRecords(int records) {
+        this.records = Math.max(0, records);
+    }
+
+    public int getRecordSize() {
+        return record_size;
+    }
+
+    /**
+     * @param record_size approximate size of every record in bytes
+     */
+    public void setRecordSize(int record_size) {
+        this.record_size = Math.max(0, record_size);
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @param threads the number of threads serving requests
+     */
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    public Duration getLatency() {
+        return latency;
+    }
+
+    /**
+     * @param latency the delay before every response
+     */
+    public void setLatency(Duration latency) {
+        this.latency = latency == null || latency.isNegative() ? Duration.ZERO : latency;
+    }
+
+    public double getErrorRate() {
+        return error_rate;
+    }
+
+    /**
+     * @param error_rate the ratio (0.0 - 1.0) of entry endpoints' requests 
+     *                   answered with HTTP error (500 by default)
+     */
+    public void setErrorRate(double error_rate) {
+        this.error_rate = Math.min(1, Math.max(0, error_rate));
+    }
+
+    public int getErrorStatus() {
+        return error_status;
+    }
+
+    /**
+     * @param error_status HTTP status of the injected errors (e.g. 503 to be retried)
+     */
+    public void setErrorStatus(int error_status) {
+        this.error_status = Math.min(599, Math.max(400, error_status));
+    }
+
+    public double getInvalidRecordRate() {
+        return invalid_record_rate;
+    }
+
+    /**
+     * @param invalid_record_rate the ratio (0.0 - 1.0) of generated records 
+     *                            which attributes do not match the entity schema
+     */
+    public void setInvalidRecordRate(double invalid_record_rate) {
+        this.invalid_record_rate = Math.min(1, Math.max(0, invalid_record_rate));
+    }
+
+    public double getSlowBodyRate() {
+        return slow_body_rate;
+    }
+
+    /**
+     * @param slow_body_rate the ratio (0.0 - 1.0) of entry endpoints' responses
+     *                       which body is sent with a limited bandwidth
+     */
+    public void setSlowBodyRate(double slow_body_rate) {
+        this.slow_body_rate = Math.min(1, Math.max(0, slow_body_rate));
+    }
+
+    public long getSlowBodyBandwidth() {
+        return slow_body_bandwidth;
+    }
+
+    /**
+     * @param slow_body_bandwidth slow responses' bandwidth in bytes per second
+     */
+    public void setSlowBodyBandwidth(long slow_body_bandwidth) {
+        this.slow_body_bandwidth = Math.max(1, slow_body_bandwidth);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @param seed the seed used to generate content and inject faults
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+}
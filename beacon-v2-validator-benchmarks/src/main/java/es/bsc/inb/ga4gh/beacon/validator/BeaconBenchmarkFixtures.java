@@ -0,0 +1,206 @@
+/**
+ * *****************************************************************************
+ * Copyright (C) 2024 ELIXIR ES, Spanish National Bioinformatics Institute (INB)
+ * and Barcelona Supercomputing Center (BSC)
+ *
+ * Modifications to the initial code base are copyright of their respective
+ * authors, or their employers as appropriate.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *****************************************************************************
+ */
+
+
+package es.bsc.inb.ga4gh.beacon.validator;
+
+import es.bsc.inb.ga4gh.beacon.framework.model.v200.responses.BeaconInformationalResponse;
+import es.elixir.bsc.json.schema.JsonSchemaException;
+import es.elixir.bsc.json.schema.JsonSchemaReader;
+import es.elixir.bsc.json.schema.model.JsonSchema;
+import jakarta.json.Json;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonObjectBuilder;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonValue;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Fixture documents and synthetic resultsets shared by the benchmarks.
+ * 
+ * Beacon schemas refer to the remote Beacon v2 specification documents
+ * which are cached in the default schema documents cache directory.
+ * Run benchmarks with -Doffline=true to only use cached documents.
+ * 
+ * @author Dmitry Repchevsky
+ */
+
+final class BeaconBenchmarkFixtures {
+    
+    public final static String ENDPOINT = "https://beacons.bsc.es/beacon/v2.0.0/individuals";
+    
+    public final static String ENTITY_SCHEMA = "fixtures/individual-schema.json";
+    public final static String ENTITY = "fixtures/individual.json";
+    
+    // every n-th synthetic record is invalid
+    public final static int INVALID_RECORDS_RATIO = 10;
+    
+    /**
+     * The observer that ignores all messages.
+     */
+    public final static ValidationObserver NOP = error -> {};
+
+    private static volatile boolean installed;
+
+    private BeaconBenchmarkFixtures() {}
+    
+    /**
+     * Installs the schema documents cache, so the remote Beacon schemas 
+     * are not downloaded on every read.
+     */
+    public static synchronized void installSchemaCache() {
+        if (!installed) {
+            try {
+                SchemaDocumentCache.install(SchemaDocumentCache.DEFAULT_CACHE_DIR, 
+                        Boolean.getBoolean("offline"));
+                installed = true;
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    public static URL resource(String name) {
+        final URL url = BeaconBenchmarkFixtures.class.getClassLoader().getResource(name);
+        if (url == null) {
+            throw new IllegalArgumentException("no resource found: " + name);
+        }
+        return url;
+    }
+    
+    public static byte[] bytes(String name) {
+        try (InputStream in = resource(name).openStream()) {
+            return in.readAllBytes();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    public static JsonValue json(byte[] bytes) {
+        try (JsonReader reader = Json.createReader(new ByteArrayInputStream(bytes))) {
+            return reader.readValue();
+        }
+    }
+
+    public static JsonSchema schema(URL url) {
+        try {
+            return JsonSchemaReader.getReader().read(url);
+        } catch (JsonSchemaException ex) {
+            throw new IllegalStateException(String.format("error compiling %s: %s", 
+                    url, ex.getMessage()), ex);
+        }
+    }
+
+    /**
+     * @return the fixture document of the metadata endpoint
+     */
+    public static String metadata(BeaconMetadataSchema schema) {
+        final String name = switch(schema) {
+            case BEACON_INFO_RESPONSE_SCHEMA -> "fixtures/info.json";
+            case BEACON_MAP_RESPONSE_SCHEMA -> "fixtures/map.json";
+            case BEACON_CONFIGURATION_SCHEMA -> "fixtures/configuration.json";
+            case BEACON_ENTRY_TYPES_SCHEMA -> "fixtures/entry_types.json";
+            case BEACON_FILTERING_TERMS_SCHEMA -> "fixtures/filtering_terms.json";
+        };
+        return new String(bytes(name), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Creates the metadata model from the fixture documents.
+     * 
+     * @return the Beacon metadata model
+     */
+    public static BeaconMetadataModel model() {
+        final BeaconMetadataValidator validator = new BeaconMetadataValidator();
+        final Map<BeaconMetadataSchema, BeaconInformationalResponse> metadata = 
+                new EnumMap(BeaconMetadataSchema.class);
+        for (BeaconMetadataSchema schema : BeaconMetadataSchema.values()) {
+            metadata.put(schema, validator.parseMetadata(metadata(schema), schema));
+        }
+        return new BeaconMetadataModel(metadata);
+    }
+
+    /**
+     * Generates the Beacon resultsets response with a number of records.
+     * Every INVALID_RECORDS_RATIO record violates the entity schema.
+     * 
+     * @param records the number of records in the response
+     * 
+     * @return serialized Beacon response
+     */
+    public static byte[] resultsets(int records) {
+        final JsonObject entity = json(bytes(ENTITY)).asJsonObject();
+
+        final JsonArrayBuilder results = Json.createArrayBuilder();
+        for (int i = 0; i < records; i++) {
+            final JsonObjectBuilder record = Json.createObjectBuilder(entity)
+                    .add("id", String.format("HG%05d", i));
+            if (i % INVALID_RECORDS_RATIO == INVALID_RECORDS_RATIO - 1) {
+                record.add("sex", Json.createObjectBuilder().add("label", "unknown"))
+                      .add("measures", Json.createArrayBuilder()
+                          .add(Json.createObjectBuilder().add("date", "yesterday")));
+            }
+            results.add(record);
+        }
+
+        final JsonObject response = Json.createObjectBuilder()
+            .add("meta", Json.createObjectBuilder()
+                .add("beaconId", "es.bsc.inb.benchmark")
+                .add("apiVersion", "v2.0.0")
+                .add("returnedGranularity", "record")
+                .add("receivedRequestSummary", Json.createObjectBuilder()
+                    .add("apiVersion", "v2.0.0")
+                    .add("requestedSchemas", Json.createArrayBuilder())
+                    .add("pagination", Json.createObjectBuilder()
+                        .add("skip", 0).add("limit", records))
+                    .add("requestedGranularity", "record"))
+                .add("returnedSchemas", Json.createArrayBuilder()
+                    .add(Json.createObjectBuilder()
+                        .add("entityType", "individual")
+                        .add("schema", "ga4gh-beacon-individual-v2.0.0"))))
+            .add("responseSummary", Json.createObjectBuilder()
+                .add("exists", records > 0)
+                .add("numTotalResults", records))
+            .add("response", Json.createObjectBuilder()
+                .add("resultSets", Json.createArrayBuilder()
+                    .add(Json.createObjectBuilder()
+                        .add("id", "benchmark")
+                        .add("setType", "dataset")
+                        .add("exists", records > 0)
+                        .add("resultsCount", records)
+                        .add("results", results))))
+            .build();
+
+        return response.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
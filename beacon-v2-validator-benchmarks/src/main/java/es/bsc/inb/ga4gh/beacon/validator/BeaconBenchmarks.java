@@ -0,0 +1,69 @@
+/**
+ * *****************************************************************************
+ * Copyright (C) 2024 ELIXIR ES, Spanish National Bioinformatics Institute (INB)
+ * and Barcelona Supercomputing Center (BSC)
+ *
+ * Modifications to the initial code base are copyright of their respective
+ * authors, or their employers as appropriate.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *****************************************************************************
+ */
+
+
+package es.bsc.inb.ga4gh.beacon.validator;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the validator benchmarks with the allocation (GC) profiler and 
+ * stores results in JSON so they may be compared with the baseline.
+ * 
+ * Accepts standard JMH command line options, e.g. benchmarks' regex:
+ * 
+ * java -jar neat-beacon-v2-benchmarks.jar BeaconResponseBenchmark -p size=LARGE
+ * 
+ * @author Dmitry Repchevsky
+ */
+
+public class BeaconBenchmarks {
+    
+    public final static String DEFAULT_RESULT_FILE = "benchmarks.json";
+
+    public static void main(String[] args) throws RunnerException {
+        final Options options;
+        try {
+            options = new OptionsBuilder()
+                    .parent(new CommandLineOptions(args))
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(System.getProperty("result", DEFAULT_RESULT_FILE))
+                    .build();
+        } catch (CommandLineOptionException ex) {
+            System.err.println(ex.getMessage());
+            System.exit(1);
+            return;
+        }
+        new Runner(options).run();
+    }
+}
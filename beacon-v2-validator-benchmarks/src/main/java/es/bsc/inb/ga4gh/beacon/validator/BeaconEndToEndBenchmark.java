@@ -0,0 +1,104 @@
+/**
+ * *****************************************************************************
+ * Copyright (C) 2024 ELIXIR ES, Spanish National Bioinformatics Institute (INB)
+ * and Barcelona Supercomputing Center (BSC)
+ *
+ * Modifications to the initial code base are copyright of their respective
+ * authors, or their employers as appropriate.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *****************************************************************************
+ */
+
+
+package es.bsc.inb.ga4gh.beacon.validator;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End-to-end validation of the local synthetic Beacon: 
+ * metadata loading and the endpoints validation.
+ * 
+ * @author Dmitry Repchevsky
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class BeaconEndToEndBenchmark {
+
+    @Param({"3", "7"})
+    public int entry_types;
+    
+    @Param({"1", "8"})
+    public int parallelism;
+    
+    // injected latency in milliseconds
+    @Param({"0", "20"})
+    public int latency;
+
+    private SyntheticBeacon beacon;
+    private String endpoint;
+    private BeaconMetadataModel model;
+
+    @Setup
+    public void setup() throws IOException {
+        BeaconBenchmarkFixtures.installSchemaCache();
+
+        final SyntheticBeaconConfiguration configuration = new SyntheticBeaconConfiguration();
+        configuration.setEntryTypes(entry_types);
+        configuration.setRecords(1000);
+        configuration.setRecordSize(4096);
+        configuration.setLatency(Duration.ofMillis(latency));
+        
+        beacon = new SyntheticBeacon(configuration);
+        endpoint = beacon.start();
+        model = BeaconMetadataModel.load(endpoint, BeaconBenchmarkFixtures.NOP);
+    }
+
+    @TearDown
+    public void tearDown() {
+        beacon.stop();
+    }
+
+    @Benchmark
+    public BeaconMetadataModel loadMetadata() {
+        return BeaconMetadataModel.load(endpoint, BeaconBenchmarkFixtures.NOP);
+    }
+
+    @Benchmark
+    public void validateEndpoints() {
+        new BeaconEndpointValidator(model, parallelism).validate(endpoint, 
+                BeaconBenchmarkFixtures.NOP);
+    }
+}
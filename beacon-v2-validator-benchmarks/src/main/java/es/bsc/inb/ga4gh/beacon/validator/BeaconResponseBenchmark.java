@@ -0,0 +1,107 @@
+/**
+ * *****************************************************************************
+ * Copyright (C) 2024 ELIXIR ES, Spanish National Bioinformatics Institute (INB)
+ * and Barcelona Supercomputing Center (BSC)
+ *
+ * Modifications to the initial code base are copyright of their respective
+ * authors, or their employers as appropriate.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *****************************************************************************
+ */
+
+
+package es.bsc.inb.ga4gh.beacon.validator;
+
+import es.elixir.bsc.json.schema.model.JsonSchema;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonValue;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Processing of the entry endpoints responses as done by the 
+ * BeaconEndpointValidator: parsing, validation against the Beacon 
+ * framework response schema with entries extraction and per record 
+ * validation against the entity schema.
+ * 
+ * @author Dmitry Repchevsky
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BeaconResponseBenchmark {
+    
+    @Param
+    public ResultsetSize size;
+    
+    private BeaconEndpointValidator validator;
+    private JsonSchema schema;
+    private byte[] bytes;
+    private JsonValue response;
+    private List<JsonObject> entries;
+
+    @Setup
+    public void setup() {
+        BeaconBenchmarkFixtures.installSchemaCache();
+        
+        validator = new BeaconEndpointValidator(BeaconBenchmarkFixtures.model());
+        schema = BeaconBenchmarkFixtures.schema(
+                BeaconBenchmarkFixtures.resource(BeaconBenchmarkFixtures.ENTITY_SCHEMA));
+        bytes = BeaconBenchmarkFixtures.resultsets(size.records);
+        response = BeaconBenchmarkFixtures.json(bytes);
+        entries = validator.validateEntryResponse(BeaconBenchmarkFixtures.ENDPOINT, 
+                response, BeaconBenchmarkFixtures.NOP);
+    }
+
+    @Benchmark
+    public JsonValue parse() {
+        return BeaconBenchmarkFixtures.json(bytes);
+    }
+
+    @Benchmark
+    public List<JsonObject> validateEntryResponse() {
+        return validator.validateEntryResponse(BeaconBenchmarkFixtures.ENDPOINT, 
+                response, BeaconBenchmarkFixtures.NOP);
+    }
+
+    @Benchmark
+    public List<JsonObject> parseAndValidateEntryResponse() {
+        return validator.validateEntryResponse(BeaconBenchmarkFixtures.ENDPOINT, 
+                BeaconBenchmarkFixtures.json(bytes), BeaconBenchmarkFixtures.NOP);
+    }
+
+    @Benchmark
+    public Object validateEntries() {
+        return validator.validateEntries(BeaconBenchmarkFixtures.ENDPOINT, schema, entries, 
+                BeaconBenchmarkFixtures.NOP);
+    }
+}
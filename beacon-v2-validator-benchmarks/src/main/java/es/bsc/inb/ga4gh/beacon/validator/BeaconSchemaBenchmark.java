@@ -0,0 +1,81 @@
+/**
+ * *****************************************************************************
+ * Copyright (C) 2024 ELIXIR ES, Spanish National Bioinformatics Institute (INB)
+ * and Barcelona Supercomputing Center (BSC)
+ *
+ * Modifications to the initial code base are copyright of their respective
+ * authors, or their employers as appropriate.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *****************************************************************************
+ */
+
+
+package es.bsc.inb.ga4gh.beacon.validator;
+
+import es.elixir.bsc.json.schema.model.JsonSchema;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compilation of the Beacon metadata and framework schemas.
+ * 
+ * Schemas are read bypassing the JsonSchemaCache, so every invocation 
+ * parses the schema and all its (cached on disk) referenced documents.
+ * 
+ * @author Dmitry Repchevsky
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BeaconSchemaBenchmark {
+    
+    @Param({"BEACON_INFO_RESPONSE_SCHEMA", "BEACON_MAP_RESPONSE_SCHEMA", 
+            "BEACON_ENTRY_TYPES_SCHEMA", "BEACON_CONFIGURATION_SCHEMA", 
+            "BEACON_FILTERING_TERMS_SCHEMA", "BEACON_RESPONSE_SCHEMA"})
+    public String schema;
+
+    private URL url;
+
+    @Setup
+    public void setup() {
+        BeaconBenchmarkFixtures.installSchemaCache();
+
+        final BeaconFrameworkSchema framework_schema = BeaconFrameworkSchema.BEACON_RESPONSE_SCHEMA;
+        url = BeaconBenchmarkFixtures.resource(framework_schema.name().equals(schema) 
+                ? framework_schema.SCHEMA : BeaconMetadataSchema.valueOf(schema).SCHEMA);
+    }
+
+    @Benchmark
+    public JsonSchema compile() {
+        return BeaconBenchmarkFixtures.schema(url);
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * *****************************************************************************
+ * Copyright (C) 2024 ELIXIR ES, Spanish National Bioinformatics Institute (INB)
+ * and Barcelona Supercomputing Center (BSC)
+ *
+ * Modifications to the initial code base are copyright of their respective
+ * authors, or their employers as appropriate.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *****************************************************************************
+ */
+
+
+package es.bsc.inb.ga4gh.beacon.validator;
+
+import es.bsc.inb.ga4gh.beacon.framework.model.v200.configuration.Endpoint;
+import es.bsc.inb.ga4gh.beacon.framework.model.v200.configuration.RelatedEndpoint;
+import jakarta.json.JsonObject;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Resolution of the single entry endpoints' templates found in the fixture
+ * Beacon map with the identifiers of the fixture entity.
+ * 
+ * @author Dmitry Repchevsky
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BeaconTemplateBenchmark {
+
+    private BeaconEndpointValidator validator;
+    private URI root_endpoint_uri;
+    private List<String> templates;
+    private List<String> resolved;
+    private JsonObject entry;
+
+    @Setup
+    public void setup() {
+        final BeaconMetadataModel model = BeaconBenchmarkFixtures.model();
+        validator = new BeaconEndpointValidator(model);
+        
+        final Endpoint endpoint = model.map.getResponse().getEndpointSets().values().iterator().next();
+        root_endpoint_uri = URI.create(endpoint.getRootUrl());
+
+        templates = new ArrayList();
+        templates.add(endpoint.getSingleEntryUrl());
+        for (RelatedEndpoint related_endpoint : endpoint.getEndpoints().values()) {
+            templates.add(related_endpoint.getUrl());
+        }
+
+        resolved = new ArrayList();
+        for (String template : templates) {
+            resolved.add(validator.resolve(root_endpoint_uri, template));
+        }
+
+        entry = BeaconBenchmarkFixtures.json(
+                BeaconBenchmarkFixtures.bytes(BeaconBenchmarkFixtures.ENTITY)).asJsonObject();
+    }
+
+    @Benchmark
+    public void resolve(Blackhole bh) {
+        for (String template : templates) {
+            bh.consume(validator.resolve(root_endpoint_uri, template));
+        }
+    }
+
+    @Benchmark
+    public void resolveTemplateParameters(Blackhole bh) {
+        for (String template : resolved) {
+            bh.consume(validator.resolveTemplateParameters(template, entry));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * *****************************************************************************
+ * Copyright (C) 2024 ELIXIR ES, Spanish National Bioinformatics Institute (INB)
+ * and Barcelona Supercomputing Center (BSC)
+ *
+ * Modifications to the initial code base are copyright of their respective
+ * authors, or their employers as appropriate.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *****************************************************************************
+ */
+
+
+package es.bsc.inb.ga4gh.beacon.validator;
+
+import es.elixir.bsc.json.schema.ValidationError;
+import es.elixir.bsc.json.schema.model.JsonSchema;
+import jakarta.json.JsonValue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Construction of the validation messages from the schema validation errors
+ * found in the invalid synthetic records.
+ * 
+ * @author Dmitry Repchevsky
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BeaconValidationMessageBenchmark {
+
+    private List<ValidationError> errors;
+
+    @Setup
+    public void setup() {
+        final JsonSchema schema = BeaconBenchmarkFixtures.schema(
+                BeaconBenchmarkFixtures.resource(BeaconBenchmarkFixtures.ENTITY_SCHEMA));
+
+        final JsonValue response = BeaconBenchmarkFixtures.json(
+                BeaconBenchmarkFixtures.resultsets(BeaconBenchmarkFixtures.INVALID_RECORDS_RATIO));
+        final JsonValue record = response.asJsonObject().getJsonObject("response")
+                .getJsonArray("resultSets").getJsonObject(0)
+                .getJsonArray("results").get(BeaconBenchmarkFixtures.INVALID_RECORDS_RATIO - 1);
+
+        errors = new ArrayList();
+        schema.validate(record, errors);
+        if (errors.isEmpty()) {
+            throw new IllegalStateException("no validation errors found");
+        }
+    }
+
+    @Benchmark
+    public void create(Blackhole bh) {
+        for (ValidationError error : errors) {
+            bh.consume(new BeaconValidationMessage(error));
+        }
+    }
+
+    @Benchmark
+    public void format(Blackhole bh) {
+        for (ValidationError error : errors) {
+            bh.consume(new BeaconValidationMessage(error).toString());
+        }
+    }
+}
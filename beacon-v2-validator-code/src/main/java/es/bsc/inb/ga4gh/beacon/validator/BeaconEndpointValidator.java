@@ -30,26 +30,19 @@ import es.bsc.inb.ga4gh.beacon.framework.model.v200.configuration.BeaconConfigur
 import es.bsc.inb.ga4gh.beacon.framework.model.v200.configuration.BeaconMap;
 import es.bsc.inb.ga4gh.beacon.framework.model.v200.configuration.Endpoint;
 import es.bsc.inb.ga4gh.beacon.framework.model.v200.configuration.RelatedEndpoint;
-import es.bsc.inb.ga4gh.beacon.framework.model.v200.responses.AbstractBeaconResponse;
-import es.bsc.inb.ga4gh.beacon.framework.model.v200.responses.BeaconCollections;
-import es.bsc.inb.ga4gh.beacon.framework.model.v200.responses.BeaconCollectionsResponse;
 import es.bsc.inb.ga4gh.beacon.framework.model.v200.responses.BeaconInformationalResponseMeta;
-import es.bsc.inb.ga4gh.beacon.framework.model.v200.responses.BeaconResultset;
-import es.bsc.inb.ga4gh.beacon.framework.model.v200.responses.BeaconResultsets;
-import es.bsc.inb.ga4gh.beacon.framework.model.v200.responses.BeaconResultsetsResponse;
 import es.bsc.inb.ga4gh.beacon.framework.model.v200.responses.EntryTypeDefinition;
-import es.elixir.bsc.json.schema.JsonSchemaReader;
 import es.elixir.bsc.json.schema.ValidationError;
 import es.elixir.bsc.json.schema.model.JsonSchema;
 import jakarta.json.Json;
+import jakarta.json.JsonArray;
 import jakarta.json.JsonObject;
 import jakarta.json.JsonObjectBuilder;
-import jakarta.json.JsonReader;
+import jakarta.json.JsonException;
+import jakarta.json.JsonNumber;
 import jakarta.json.JsonString;
 import jakarta.json.JsonValue;
-import jakarta.json.bind.Jsonb;
-import jakarta.json.bind.JsonbBuilder;
-import java.io.StringReader;
+import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URL;
@@ -59,10 +52,23 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.MatchResult;
 import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 
 /**
  * @author Dmitry Repchevsky
@@ -70,35 +76,102 @@ import java.util.regex.Pattern;
 
 public class BeaconEndpointValidator {
     
-    private static final Jsonb JSONB = JsonbBuilder.create();
+    public final static int DEFAULT_PAGE_SIZE = 100;
+    public final static int SAMPLING_CONCURRENCY = 4;
     
+    // minimal number of entries to be validated in parallel
+    public final static int PARALLEL_VALIDATION_THRESHOLD = 16;
+
     private final BeaconMetadataModel model;
-    private final JsonSchema response_schema;
     
     private final JsonObject dummy_request;
     private final Pattern param_pattern = Pattern.compile("\\{.*\\}");
     
+    private final int parallelism;
+    private final ValidationDeadline deadline;
+    private final ErrorBudget budget;
+    
+    private final ValidationFingerprints fingerprints;
+    private final Map<String, String> schema_hashes;
+    
+    private int aggregation = -1;
+    
+    private int sampling;
+    private int page_size = DEFAULT_PAGE_SIZE;
+    
     public BeaconEndpointValidator(BeaconMetadataModel model) {
+        this(model, 1);
+    }
+
+    public BeaconEndpointValidator(BeaconMetadataModel model, int parallelism) {
+        this(model, parallelism, ValidationDeadline.unlimited());
+    }
+
+    public BeaconEndpointValidator(BeaconMetadataModel model, int parallelism, 
+            ValidationDeadline deadline) {
+        this(model, parallelism, deadline, ErrorBudget.unlimited());
+    }
+
+    /**
+     * @param model Beacon metadata model
+     * @param parallelism the maximum number of concurrently validated endpoints
+     *                    (1 for sequential validation)
+     * @param deadline the validation time budget
+     * @param budget the validation errors budget
+     */
+    public BeaconEndpointValidator(BeaconMetadataModel model, int parallelism, 
+            ValidationDeadline deadline, ErrorBudget budget) {
         this.model = model;
+        this.parallelism = Math.max(1, parallelism);
+        this.deadline = deadline;
+        this.budget = budget;
         
-        JsonSchema schema = null;
-        try {
-            final URL url = BeaconEndpointValidator.class.getClassLoader().getResource(BeaconFrameworkSchema.BEACON_RESPONSE_SCHEMA.SCHEMA);
-            if (url != null) {
-                schema = JsonSchemaReader.getReader().read(url);
-            }
-        } catch(Exception ex) {
-            Logger.getLogger(BeaconEndpointValidator.class.getName()).log(Level.SEVERE, "error loading schema {0} {1}", 
-                    new Object[]{BeaconFrameworkSchema.BEACON_RESPONSE_SCHEMA.SCHEMA, ex.getMessage()});
-        }
+        fingerprints = ValidationFingerprints.getDefault();
+        schema_hashes = new ConcurrentHashMap();
+        
+        dummy_request = createRequest(0, 1);
+    }
+
+    /**
+     * Enables aggregation of similar JSON Schema errors (same code, schema 
+     * location and path ignoring array indexes). Only first errors of every 
+     * group are reported followed by the number of errors in the group.
+     * 
+     * @param examples the number of errors reported for every group 
+     *                 (negative to report all errors)
+     */
+    public void setAggregation(int examples) {
+        this.aggregation = examples;
+    }
 
-        response_schema = schema;
-        dummy_request = createDummyRequest();
+    /**
+     * Enables deep sampling of the endpoint sets' root endpoints.
+     * 
+     * Besides the single record used to resolve identifiers, up to 'records' 
+     * records are requested by pages (consecutive ones or randomly chosen 
+     * when the endpoint has more results) and validated as soon as every 
+     * page is loaded. Pages are requested concurrently.
+     * 
+     * @param records the number of records to validate per entry type (0 - no sampling)
+     * @param page_size the number of records requested at once
+     */
+    public void setSampling(int records, int page_size) {
+        this.sampling = Math.max(0, records);
+        this.page_size = Math.max(1, page_size);
     }
 
     /**
      * Validate the Beacon API.
      * 
+     * When parallelism is greater than 1, endpoint sets are validated 
+     * concurrently, while the messages are still reported in the same order 
+     * as for the sequential validation.
+     * 
+     * When ValidationFingerprints are set, endpoint sets which inputs are 
+     * unchanged since the last validation are not validated again and 
+     * previous validation messages are reported. Only the root endpoint 
+     * is requested to decide whether the endpoint set is unchanged.
+     * 
      * @param beacon_endpoint Beacon's API endpoint
      * @param reporter validation process observer
      */
@@ -109,26 +182,175 @@ public class BeaconEndpointValidator {
             final Map<String, Endpoint> endpoints = response.getEndpointSets();
             if (endpoints != null) {
                 final URI beacon_endpoint_uri = URI.create(beacon_endpoint);
-                for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
-                    validateEndpoint(beacon_endpoint_uri, entry.getKey(), 
-                            entry.getValue(), reporter);
+                if (parallelism > 1) {
+                    validate(beacon_endpoint_uri, endpoints, reporter);
+                } else {
+                    // sampled pages of every endpoint set are still loaded concurrently
+                    final ExecutorService sampler = sampling > 0 
+                            ? Executors.newFixedThreadPool(SAMPLING_CONCURRENCY) : null;
+                    try {
+                        for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+                            validateEndpoint(beacon_endpoint_uri, entry.getKey(), 
+                                    entry.getValue(), sampler, reporter);
+                        }
+                    } finally {
+                        if (sampler != null) {
+                            sampler.shutdownNow();
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void validate(URI beacon_endpoint_uri, Map<String, Endpoint> endpoints, 
+            ValidationObserver reporter) {
+
+        final ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            final List<CompletableFuture<List<ValidationMessagesBuffer>>> results = new ArrayList();
+            for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+                results.add(validateEndpointAsync(beacon_endpoint_uri, entry.getKey(), 
+                        entry.getValue(), executor));
+            }
+            for (CompletableFuture<List<ValidationMessagesBuffer>> result : results) {
+                for (ValidationMessagesBuffer buffer : result.join()) {
+                    buffer.replay(reporter);
                 }
             }
+        } finally {
+            executor.shutdownNow();
         }
     }
     
+    /**
+     * Validates the endpoint set sequentially, only sampled pages are 
+     * loaded concurrently using the sampler executor.
+     */
     private void validateEndpoint(URI beacon_endpoint_uri, String endpoint_name, 
-            Endpoint endpoint, ValidationObserver reporter) {
+            Endpoint endpoint, Executor sampler, ValidationObserver reporter) {
+        
+        final ValidationObserver counter = budget.observe(reporter);
+
+        counter.message(String.format("validate endpoints: [%s] %s", endpoint_name, beacon_endpoint_uri));
+        counter.endpoint(beacon_endpoint_uri.toString());
+        
+        final String root_endpoint = getRootEndpoint(beacon_endpoint_uri, endpoint, counter);
+        if (root_endpoint != null) {
+            final JsonValue response = loadEntryEndpoint(root_endpoint, endpoint.getEntryType(), counter);
+            final URI root_endpoint_uri = URI.create(root_endpoint);
+            final String fingerprint = fingerprint(endpoint, response);
+            if (reuse(beacon_endpoint_uri, endpoint_name, fingerprint, counter)) {
+                return;
+            }
+
+            // collect the messages to be kept with the fingerprint
+            final ValidationMessagesBuffer buffer = new ValidationMessagesBuffer();
+            final ValidationObserver observer = fingerprint == null ? counter : budget.observe(buffer);
+
+            final JsonObject entry = validateRootEndpoint(beacon_endpoint_uri, 
+                    endpoint_name, endpoint, root_endpoint, response, observer);
+            // sampled pages' errors are already counted
+            sample(root_endpoint, endpoint.getEntryType(), response, sampler).join()
+                    .replay(fingerprint == null ? reporter : buffer);
+            if (entry != null) {
+                for (EntryEndpoint entry_endpoint : getEntryEndpoints(endpoint)) {
+                    validateEndpoint(root_endpoint_uri, entry_endpoint.template, 
+                            entry_endpoint.entryType, entry, observer);
+                }
+            }
+            
+            if (fingerprint != null) {
+                buffer.replay(reporter);
+                store(beacon_endpoint_uri, endpoint_name, fingerprint, buffer);
+            }
+        }
+    }
+    
+    /**
+     * Validates the endpoint set using provided executor.
+     * The single entry and related endpoints are validated concurrently 
+     * once the root endpoint provides an entry to resolve their identifiers.
+     * Sampled pages are loaded by the same executor, so its size limits 
+     * all the concurrent requests.
+     * 
+     * @return ordered list of buffered validation messages
+     */
+    private CompletableFuture<List<ValidationMessagesBuffer>> validateEndpointAsync(
+            URI beacon_endpoint_uri, String endpoint_name, Endpoint endpoint, 
+            Executor executor) {
+
+        final ValidationMessagesBuffer buffer = new ValidationMessagesBuffer();
+        final ValidationObserver observer = budget.observe(buffer);
+
+        observer.message(String.format("validate endpoints: [%s] %s", endpoint_name, beacon_endpoint_uri));
+        observer.endpoint(beacon_endpoint_uri.toString());
+
+        final String root_endpoint = getRootEndpoint(beacon_endpoint_uri, endpoint, observer);
+        if (root_endpoint == null) {
+            return CompletableFuture.completedFuture(List.of(buffer));
+        }
         
-        reporter.message(String.format("validate endpoints: [%s] %s", endpoint_name, beacon_endpoint_uri));
+        final URI root_endpoint_uri = URI.create(root_endpoint);
         
+        return CompletableFuture.supplyAsync(() -> loadEntryEndpoint(root_endpoint, 
+                endpoint.getEntryType(), observer), executor)
+            .thenComposeAsync(response -> {
+                final String fingerprint = fingerprint(endpoint, response);
+                if (reuse(beacon_endpoint_uri, endpoint_name, fingerprint, observer)) {
+                    return CompletableFuture.completedFuture(List.of(buffer));
+                }
+
+                // messages to be kept with the fingerprint start here
+                final ValidationMessagesBuffer root = new ValidationMessagesBuffer();
+                final JsonObject entry = validateRootEndpoint(beacon_endpoint_uri, 
+                        endpoint_name, endpoint, root_endpoint, response, budget.observe(root));
+
+                final List<CompletableFuture<ValidationMessagesBuffer>> futures = new ArrayList();
+                if (sampling > 0 && response != null) {
+                    futures.add(sample(root_endpoint, endpoint.getEntryType(), 
+                            response, executor));
+                }
+                if (entry != null) {
+                    for (EntryEndpoint entry_endpoint : getEntryEndpoints(endpoint)) {
+                        futures.add(CompletableFuture.supplyAsync(() -> {
+                            final ValidationMessagesBuffer buf = new ValidationMessagesBuffer();
+                            validateEndpoint(root_endpoint_uri, entry_endpoint.template, 
+                                    entry_endpoint.entryType, entry, budget.observe(buf));
+                            return buf;
+                        }, executor));
+                    }
+                }
+                return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                        .thenApply(v -> {
+                            final List<ValidationMessagesBuffer> buffers = new ArrayList();
+                            buffers.add(buffer);
+                            buffers.add(root);
+                            for (CompletableFuture<ValidationMessagesBuffer> future : futures) {
+                                buffers.add(future.join());
+                            }
+                            if (fingerprint != null) {
+                                final ValidationMessagesBuffer messages = new ValidationMessagesBuffer();
+                                for (ValidationMessagesBuffer buf : buffers.subList(1, buffers.size())) {
+                                    buf.replay(messages);
+                                }
+                                store(beacon_endpoint_uri, endpoint_name, fingerprint, messages);
+                            }
+                            return buffers;
+                        });
+            }, executor);
+    }
+
+    private String getRootEndpoint(URI beacon_endpoint_uri, Endpoint endpoint, 
+            ValidationObserver reporter) {
+
         final String root = endpoint.getRootUrl();
         if (root == null) {
             reporter.error(new BeaconValidationMessage(
                     BeaconValidationErrorType.CONTENT_ERROR,
                     null, beacon_endpoint_uri.toString(), null,
                     "no 'root' endpoint found."));
-            return;
+            return null;
         }
         
         final String root_endpoint = resolve(beacon_endpoint_uri, root);
@@ -137,38 +359,63 @@ public class BeaconEndpointValidator {
                     BeaconValidationErrorType.CONTENT_ERROR,
                     null, beacon_endpoint_uri.toString(), null,
                     String.format("invalid 'root' endpoint: %s", root)));
-            return;
         }
+
+        return root_endpoint;
+    }
+
+    /**
+     * Validates the root endpoint response of the endpoint set.
+     * 
+     * @param response the root endpoint response or null if it failed to load
+     * 
+     * @return the entry to resolve single entry and related endpoints or null
+     */
+    private JsonObject validateRootEndpoint(URI beacon_endpoint_uri, String endpoint_name, 
+            Endpoint endpoint, String root_endpoint, JsonValue response, 
+            ValidationObserver reporter) {
+
+        final List<JsonObject> entries = response == null 
+                ? null : validateEntryResponse(root_endpoint, response, reporter);
         
-        final URI root_endpoint_uri = URI.create(root_endpoint);
-        
-        final AbstractBeaconResponse response = 
-                validateEntryEndpoint(root_endpoint, reporter);
-        
-        if (response != null) {
+        if (entries != null) {
             final String entryType = endpoint.getEntryType();
-            final JsonObject entry = validateResponse(response, entryType, reporter);
+            final JsonObject entry = validateResponse(root_endpoint, entries, entryType, reporter);
             if (entry == null) {
                 reporter.error(new BeaconValidationMessage(
                         BeaconValidationErrorType.CONTENT_ERROR,
                         null, beacon_endpoint_uri.toString(), null,
                         String.format("unable to resolve [%s] identifier, as %s returned no 'results'", endpoint_name, root_endpoint)));
-            } else {
-                final String singleEntryUrl = endpoint.getSingleEntryUrl();
-                validateEndpoint(root_endpoint_uri, singleEntryUrl, entryType, entry, reporter);
-                
-                final Map<String, RelatedEndpoint> endpoints = endpoint.getEndpoints();
-                if (endpoints != null) {
-                    for (RelatedEndpoint related_endpoint : endpoints.values()) {
-                        final String url = related_endpoint.getUrl();
-                        final String returnedEntryType = related_endpoint.getReturnedEntryType();
-                        validateEndpoint(root_endpoint_uri, url, returnedEntryType, entry, reporter);
-                    }
-                }
             }
+            return entry;
         }
+        
+        return null;
     }
-    
+
+    /**
+     * Collects single entry and related endpoints of the endpoint set.
+     */
+    private List<EntryEndpoint> getEntryEndpoints(Endpoint endpoint) {
+        final List<EntryEndpoint> entry_endpoints = new ArrayList();
+
+        final String entryType = endpoint.getEntryType();
+        entry_endpoints.add(new EntryEndpoint(endpoint.getSingleEntryUrl(), entryType));
+        
+        final Map<String, RelatedEndpoint> endpoints = endpoint.getEndpoints();
+        if (endpoints != null) {
+            for (RelatedEndpoint related_endpoint : endpoints.values()) {
+                entry_endpoints.add(new EntryEndpoint(related_endpoint.getUrl(), 
+                        related_endpoint.getReturnedEntryType()));
+            }
+        }
+        
+        return entry_endpoints;
+    }
+
+    /**
+     * Validates the single entry or related endpoint.
+     */
     private void validateEndpoint(URI root_endpoint_uri, String endpoint_template, 
             String entryType, JsonObject entry, ValidationObserver reporter) {
 
@@ -182,17 +429,16 @@ public class BeaconEndpointValidator {
                         null, single_entry_endpoint, null,
                         "can't resolve identifier"));
             } else {
-                final AbstractBeaconResponse response = 
-                    validateEntryEndpoint(single_entry_endpoint, reporter);
-
-                if (response != null) {
-                    validateResponse(response, entryType, reporter);
+                final List<JsonObject> entries = 
+                        validateEntryEndpoint(single_entry_endpoint, entryType, reporter);
+                if (entries != null) {
+                    validateResponse(single_entry_endpoint, entries, entryType, reporter);
                 }
             }
         }
     }
             
-    private String resolveTemplateParameters(String template, JsonObject entry) {
+    String resolveTemplateParameters(String template, JsonObject entry) {
         final JsonValue _id = entry.get("id");
         
         final StringBuilder single_entry_endpoint = new StringBuilder(template);
@@ -240,49 +486,91 @@ public class BeaconEndpointValidator {
         return null;
     }
 
-    private AbstractBeaconResponse validateEntryEndpoint(String endpoint,
+    /**
+     * Calls the endpoint and validates the response against the Beacon framework
+     * response schema.
+     * 
+     * The response is parsed once (directly from the HTTP stream) and the 
+     * same JSON tree is used for both validation and the extraction of 
+     * returned entries.
+     * 
+     * @return returned entries or null if the response can not be processed
+     */
+    private List<JsonObject> validateEntryEndpoint(String endpoint, String entryType,
             ValidationObserver reporter) {
 
+        final JsonValue value = loadEntryEndpoint(endpoint, entryType, reporter);
+        return value == null ? null : validateEntryResponse(endpoint, value, reporter);
+    }
+    
+    private JsonValue loadEntryEndpoint(String endpoint, String entryType, 
+            ValidationObserver reporter) {
         reporter.message(String.format("  validate endpoint: %s", endpoint));
-        
-        AbstractBeaconResponse response = null;
-        
-        final String json = callEndpoint(endpoint, dummy_request, reporter);
-        if (json != null) {
-            try (JsonReader reader = Json.createReader(new StringReader(json))) {
-                final JsonValue value = reader.readValue();
-                if (response_schema != null) {
-                    final List<ValidationError> errors = new ArrayList();
-                    if (!response_schema.validate(value, errors)) {
-                        for (ValidationError error : errors) {
-                            reporter.error(new BeaconValidationMessage(error));
+        reporter.endpoint(endpoint);
+        return callEndpoint(endpoint, entryType, dummy_request, reporter);
+    }
+
+    List<JsonObject> validateEntryResponse(String endpoint, JsonValue value,
+            ValidationObserver reporter) {
+        try {
+            final long start = System.nanoTime();
+            final JsonSchema response_schema = ResponseSchema.SCHEMA;
+            if (response_schema != null) {
+                final List<ValidationError> errors = new ArrayList();
+                if (!budget.validate(response_schema, value, errors, endpoint)) {
+                    report(budget.limit(endpoint, errors), reporter);
+                }
+            }
+            final List<JsonObject> entries = getEntries(value.asJsonObject());
+            reporter.metric(new ValidationMetric(endpoint, ValidationPhase.VALIDATE, 
+                    System.nanoTime() - start, 0, entries.size()));
+            return entries;
+        } catch (Exception ex) {
+            reporter.error(new BeaconValidationMessage(
+                    BeaconValidationErrorType.CONTENT_ERROR,
+                    null, endpoint, null, ex.getMessage()));
+        }
+
+        return null;
+    }
+
+    /**
+     * Extracts entries from either 'collections' or 'resultSets' response.
+     * 
+     * @param json Beacon response
+     * @return the list of found entries
+     */
+    private List<JsonObject> getEntries(JsonObject json) {
+        final List<JsonObject> entries = new ArrayList();
+
+        final JsonObject response = getJsonObject(json, "response");
+        if (response != null) {
+            if (response.containsKey("collections")) {
+                final JsonArray collections = getJsonArray(response, "collections");
+                if (collections != null) {
+                    for (JsonValue collection : collections) {
+                        entries.add(collection.asJsonObject());
+                    }
+                }
+            } else {
+                final JsonArray resultsets = getJsonArray(response, "resultSets");
+                if (resultsets != null) {
+                    for (JsonValue resultset : resultsets) {
+                        final JsonArray results = getJsonArray(resultset.asJsonObject(), "results");
+                        if (results != null) {
+                            for (JsonValue result : results) {
+                                entries.add(result.asJsonObject());
+                            }
                         }
                     }
-                    
                 }
-                    
-                final JsonObject o = value.asJsonObject().getJsonObject("response");
-                if (o != null && o.containsKey("collections")) {
-                    return JSONB.fromJson(json, 
-                            new BeaconCollectionsResponse<JsonObject>(){}
-                                    .getClass().getGenericSuperclass());
-                } else {
-                    return JSONB.fromJson(json, 
-                            new BeaconResultsetsResponse<JsonObject>(){}
-                                    .getClass().getGenericSuperclass());
-                }                    
-            } catch (Exception ex) {
-                reporter.error(new BeaconValidationMessage(
-                        BeaconValidationErrorType.CONTENT_ERROR,
-                        null, endpoint, null, ex.getMessage()));
-
             }
         }
 
-        return response;
+        return entries;
     }
 
-    private JsonObject validateResponse(AbstractBeaconResponse response, 
+    private JsonObject validateResponse(String endpoint, List<JsonObject> entries, 
             String entryType, ValidationObserver reporter) {
 
         JsonObject entry = null;
@@ -290,46 +578,320 @@ public class BeaconEndpointValidator {
         final String entryTypeSchema = (entryType == null) ? null : getSchemaURL(entryType);
         final JsonSchema schema = model.loadSchema(entryTypeSchema, entryType, reporter);
 
-        final List<JsonObject> entries = new ArrayList();
-        if (response instanceof BeaconCollectionsResponse res) {
-            final BeaconCollections<JsonObject> col = res.getResponse();
-            if (col != null && col.getCollections() != null) {
-                entries.addAll(col.getCollections());
-            }
-        } else if (response instanceof BeaconResultsetsResponse res) {
-            final BeaconResultsets<JsonObject> resultsets = res.getResponse();
-            if (resultsets != null && resultsets.getResultSets() != null) {
-                for (BeaconResultset resultset : resultsets.getResultSets()) {
-                    final List<JsonObject> results = resultset.getResults();
-                    if (results != null) {
-                        entries.addAll(results);
-                    }
-                }
+        if (schema != null) {
+            final ResponseValidationEvent event = new ResponseValidationEvent();
+            event.begin();
+            final long start = System.nanoTime();
+            final EntriesValidation validation = validateEntries(endpoint, schema, entries, reporter);
+            reporter.metric(new ValidationMetric(endpoint, ValidationPhase.VALIDATE, 
+                    System.nanoTime() - start));
+            if (event.shouldCommit()) {
+                event.beacon = model.beacon;
+                event.endpoint = endpoint;
+                event.entryType = entryType;
+                event.records = entries.size();
+                event.invalid = validation.invalid();
+                event.commit();
             }
+            entry = validation.entry();
         }
+
+        // return first entry when no schema or all are invalid
+        if (entry == null && !entries.isEmpty()) {
+            entry = entries.get(0);
+        }
+                
+        return entry;
+    }
+    
+    /**
+     * Validates entries against the entity schema within the errors budget.
+     * The errors are charged against the same endpoint budget as the 
+     * Beacon response schema errors of the endpoint.
+     * 
+     * Large lists of entries are validated in parallel on the validation pool
+     * (see validateParallel()), while the errors are still reported in the order of entries.
+     * 
+     * @return the first valid entry (or null) and the number of invalid entries
+     */
+    EntriesValidation validateEntries(String endpoint, JsonSchema schema, 
+            List<JsonObject> entries, ValidationObserver reporter) {
         
-        if (schema != null) {
-            final List<ValidationError> errors = new ArrayList();
-            for (JsonObject obj : entries) {
-                if (schema.validate(obj, errors) && entry == null) {
+        JsonObject entry = null;
+        int invalid = 0;
+
+        final EntryValidation[] results = validateParallel(schema, entries);
+
+        final ValidationErrorsAggregator aggregator = aggregation < 0 
+                ? null : new ValidationErrorsAggregator(aggregation);
+        final List<ValidationError> errors = new ArrayList();
+        int found = 0;
+        for (int i = 0, m = entries.size(); i < m; i++) {
+            // aggregated errors are charged as soon as they are found
+            if (budget.isExhausted(endpoint, aggregator == null ? found : 0, found)) {
+                reporter.message("  errors budget exhausted, remaining entries are not validated");
+                break;
+            }
+            final JsonObject obj = entries.get(i);
+            final int n = errors.size();
+            final boolean valid;
+            if (results == null) {
+                valid = budget.validate(schema, obj, errors, endpoint, 
+                        aggregator == null ? found : 0, found);
+            } else {
+                valid = results[i].valid();
+                errors.addAll(results[i].errors());
+            }
+            if (valid) {
+                if (entry == null) {
                     entry = obj; // keep first found valid entry;
                 }
+            } else {
+                invalid++;
+            }
+            found += errors.size() - n;
+            if (aggregator != null) {
+                aggregator.add(budget.limit(endpoint, errors));
+                errors.clear();
             }
-            for (ValidationError ve : errors) {
+        }
+        if (aggregator != null) {
+            aggregator.report(reporter);
+        } else {
+            for (ValidationError ve : budget.limit(endpoint, errors)) {
                 reporter.error(new BeaconValidationMessage(ve));
             }
         }
+        
+        return new EntriesValidation(entry, invalid);
+    }
 
-        // return first entry when no schema or all are invalid
-        if (entry == null && !entries.isEmpty()) {
-            entry = entries.get(0);
+    /**
+     * Validates entries in parallel collecting errors for every entry separately.
+     * 
+     * Entries are validated on the fork-join pool dedicated to the validation 
+     * (one thread per processor) shared by all the concurrently validated endpoints, 
+     * so the CPU-bound validation neither grows with the number of endpoint sets 
+     * validated at once nor competes with other users of the common pool.
+     * 
+     * The same compiled schema is used by all the threads. It assumes jaronuinga 
+     * schemas keep no state between validations (found errors go to the provided 
+     * list only), as JsonSchemaCache already shares them between endpoint sets. 
+     * The first entry is validated on the calling thread, so the references 
+     * the schema resolves on the first use are mostly resolved before.
+     * 
+     * @return per entry errors or null if entries are not worth parallel validation
+     */
+    private EntryValidation[] validateParallel(JsonSchema schema, List<JsonObject> entries) {
+        final int n = entries.size();
+        if (n < PARALLEL_VALIDATION_THRESHOLD || budget.isLimited() ||
+            ValidationPool.POOL.getParallelism() < 2) {
+            // limited budget stops validation at the first errors
+            return null;
         }
-                
-        return entry;
+
+        final EntryValidation[] results = new EntryValidation[n];
+        results[0] = validateEntry(schema, entries.get(0));
+        ValidationPool.POOL.submit(() -> 
+            IntStream.range(1, n).parallel().forEach(i -> {
+                results[i] = validateEntry(schema, entries.get(i));
+            })).join();
+        return results;
     }
     
-    private String callEndpoint(String endpoint, JsonObject request, 
-            ValidationObserver reporter) {
+    private static EntryValidation validateEntry(JsonSchema schema, JsonObject entry) {
+        final List<ValidationError> errors = new ArrayList();
+        return new EntryValidation(schema.validate(entry, errors), errors);
+    }
+
+    /**
+     * Validates up to 'sampling' records of the root endpoint.
+     * Pages are loaded and validated concurrently by up to SAMPLING_CONCURRENCY 
+     * tasks of the executor, while the messages are reported in the order of pages.
+     * The tasks never wait for each other, so the executor may be the one that 
+     * validates the endpoint sets.
+     * 
+     * Pages' errors are counted against the errors budget as soon as they are
+     * found, so the returned messages must be replayed to the observer 
+     * which does not count them again.
+     * 
+     * @param response the root endpoint response used to get the total number of results
+     * @param executor the executor to load and validate the pages
+     * 
+     * @return the sampling messages
+     */
+    private CompletableFuture<ValidationMessagesBuffer> sample(String root_endpoint, 
+            String entryType, JsonValue response, Executor executor) {
+        
+        if (sampling <= 0 || response == null || entryType == null) {
+            return CompletableFuture.completedFuture(new ValidationMessagesBuffer());
+        }
+        
+        // schema errors are already reported for the root endpoint
+        final JsonSchema schema = model.loadSchema(getSchemaURL(entryType), entryType, 
+                new ValidationErrorsCollector(new ArrayList()));
+        if (schema == null) {
+            return CompletableFuture.completedFuture(new ValidationMessagesBuffer());
+        }
+
+        final long total = getTotalResults(response);
+        final List<Page> pages = getSamplePages(total);
+        final boolean consecutive = total < 0 || total <= sampling;
+
+        final ValidationMessagesBuffer[] buffers = new ValidationMessagesBuffer[pages.size()];
+        final AtomicInteger next = new AtomicInteger();
+        final LongAdder records = new LongAdder();
+        final LongAdder invalid = new LongAdder();
+        
+        final long start = System.nanoTime();
+
+        final List<CompletableFuture<Void>> workers = new ArrayList();
+        for (int i = 0, n = Math.min(SAMPLING_CONCURRENCY, pages.size()); i < n; i++) {
+            workers.add(CompletableFuture.runAsync(() -> {
+                int idx;
+                while ((idx = next.getAndIncrement()) < pages.size()) {
+                    final Page page = pages.get(idx);
+                    final ValidationMessagesBuffer buffer = new ValidationMessagesBuffer();
+                    buffers[idx] = buffer;
+
+                    final ValidationObserver observer = budget.observe(buffer);
+                    observer.endpoint(root_endpoint);
+                    final JsonValue value = callEndpoint(root_endpoint, entryType,
+                            createRequest(page.skip(), page.limit()), observer);
+                    final List<JsonObject> entries = value == null 
+                            ? null : validateEntryResponse(root_endpoint, value, observer);
+                    if (entries != null) {
+                        records.add(entries.size());
+                        final long validation = System.nanoTime();
+                        invalid.add(validateEntries(root_endpoint, schema, entries, observer).invalid());
+                        observer.metric(new ValidationMetric(root_endpoint, 
+                                ValidationPhase.VALIDATE, System.nanoTime() - validation));
+                        if (consecutive && entries.size() < page.limit()) {
+                            next.set(pages.size()); // no more results
+                        }
+                    }
+                }
+            }, executor));
+        }
+
+        return CompletableFuture.allOf(workers.toArray(CompletableFuture[]::new))
+                .handle((v, th) -> {
+                    final ValidationMessagesBuffer messages = new ValidationMessagesBuffer();
+                    if (th != null) {
+                        final Throwable ex = th.getCause() != null ? th.getCause() : th;
+                        budget.observe(messages).error(new BeaconValidationMessage(
+                                BeaconValidationErrorType.CONTENT_ERROR,
+                                null, root_endpoint, null,
+                                String.format("sampling error: %s", ex.getMessage())));
+                    }
+                    for (ValidationMessagesBuffer buffer : buffers) {
+                        if (buffer != null) {
+                            buffer.replay(messages);
+                        }
+                    }
+
+                    final long seen = records.sum();
+                    final double seconds = Math.max(1, System.nanoTime() - start) / 1e9;
+                    messages.message(String.format("  sampled %s: %d records, %d invalid (%.1f%%), %.1f records/s", 
+                            root_endpoint, seen, invalid.sum(), 
+                            seen == 0 ? 0.0 : invalid.sum() * 100.0 / seen, seen / seconds));
+                    return messages;
+                });
+    }
+    
+    /**
+     * Splits sampled records into pages. When the total number of results 
+     * exceeds the sampling size, pages are randomly chosen.
+     * 
+     * @param total the total number of results (negative if unknown)
+     * 
+     * @return the list of pages to request
+     */
+    private List<Page> getSamplePages(long total) {
+        final int n = (sampling + page_size - 1) / page_size;
+        final List<Long> offsets = new ArrayList();
+        if (total > sampling) {
+            final long all = (total + page_size - 1) / page_size;
+            final Set<Long> indexes = new TreeSet();
+            while (indexes.size() < n) {
+                indexes.add(ThreadLocalRandom.current().nextLong(all));
+            }
+            for (Long index : indexes) {
+                offsets.add(index * page_size);
+            }
+        } else {
+            for (int i = 0; i < n; i++) {
+                offsets.add((long)i * page_size);
+            }
+        }
+
+        final List<Page> pages = new ArrayList();
+        for (int i = 0; i < n; i++) {
+            pages.add(new Page(offsets.get(i), i < n - 1 ? page_size : sampling - i * page_size));
+        }
+        return pages;
+    }
+
+    /**
+     * @return the number of results from the 'responseSummary' or -1 if not found
+     */
+    private static long getTotalResults(JsonValue response) {
+        if (response.getValueType() == JsonValue.ValueType.OBJECT) {
+            final JsonObject summary = getJsonObject(response.asJsonObject(), "responseSummary");
+            if (summary != null && 
+                summary.get("numTotalResults") instanceof JsonNumber total) {
+                return total.longValue();
+            }
+        }
+        return -1;
+    }
+
+    private void report(List<ValidationError> errors, ValidationObserver reporter) {
+        if (aggregation < 0) {
+            for (ValidationError error : errors) {
+                reporter.error(new BeaconValidationMessage(error));
+            }
+        } else {
+            final ValidationErrorsAggregator aggregator = new ValidationErrorsAggregator(aggregation);
+            aggregator.add(errors);
+            aggregator.report(reporter);
+        }
+    }
+
+    /**
+     * Calls the endpoint and parses the response directly from the stream.
+     * 
+     * @return parsed response or null in case of error
+     */
+    private JsonValue callEndpoint(String endpoint, String entryType, 
+            JsonObject request, ValidationObserver reporter) {
+        
+        final EntryEndpointEvent event = new EntryEndpointEvent();
+        event.begin();
+        try {
+            return callEndpoint(endpoint, request, event, event.observe(reporter));
+        } finally {
+            if (event.shouldCommit()) {
+                event.beacon = model.beacon;
+                event.endpoint = endpoint;
+                event.entryType = entryType;
+                event.commit();
+            }
+        }
+    }
+
+    private JsonValue callEndpoint(String endpoint, JsonObject request, 
+            EntryEndpointEvent event, ValidationObserver reporter) {
+
+        if (deadline.isExpired()) {
+            deadline.skip(endpoint, reporter);
+            return null;
+        }
+
+        if (budget.isExhausted()) {
+            budget.skip(endpoint, reporter);
+            return null;
+        }
 
         try {
             final URI uri = new URI(endpoint);
@@ -341,10 +903,14 @@ public class BeaconEndpointValidator {
                         String.format("relative Beacon endpoint '%s'", endpoint)));
                 return null;
             }
-            final HttpResponse<String> http_response = 
-                    ValidatorBeaconRequest.postHttpRequest(uri, request.toString());
+            final HttpResponse<InputStream> http_response = 
+                    ValidatorBeaconRequest.postHttpStream(uri, request.toString(), 
+                            deadline.timeout());
+            ValidatorBeaconRequest.reportTimings(http_response, endpoint, reporter);
+            event.status = http_response.statusCode();
 
             if (http_response.statusCode() >= 300) {
+                http_response.body().close();
                 reporter.error(new BeaconValidationMessage(
                         BeaconValidationErrorType.CONNECTION_ERROR,
                         http_response.statusCode(),
@@ -353,8 +919,8 @@ public class BeaconEndpointValidator {
                 return null;
             }
             
-            final String content = http_response.body();
-            if (content == null) {
+            if (http_response.statusCode() == HttpURLConnection.HTTP_NO_CONTENT) {
+                http_response.body().close();
                 reporter.error(new BeaconValidationMessage(
                         BeaconValidationErrorType.CONTENT_ERROR,
                         HttpURLConnection.HTTP_NO_CONTENT,
@@ -362,8 +928,23 @@ public class BeaconEndpointValidator {
                         String.format("empty response from %s", endpoint)));
                 return null;
             }
-            return content;
+
+            try {
+                return ValidatorBeaconRequest.readJson(http_response, endpoint, reporter, deadline);
+            } catch (BodyTooLargeException | JsonException ex) {
+                if (deadline.isExpired()) {
+                    deadline.skip(endpoint, reporter);
+                    return null;
+                }
+                reporter.error(new BeaconValidationMessage(
+                        BeaconValidationErrorType.CONTENT_ERROR,
+                        null, http_response.uri().toString(), null, ex.getMessage()));
+            }
         } catch(Exception ex) {
+            if (deadline.isExpired()) {
+                deadline.skip(endpoint, reporter);
+                return null;
+            }
             reporter.error(new BeaconValidationMessage(
                     BeaconValidationErrorType.CONNECTION_ERROR,
                     null, endpoint, null,
@@ -373,7 +954,118 @@ public class BeaconEndpointValidator {
         return null;
     }
     
-    private JsonObject createDummyRequest() {
+    /**
+     * Calculates the fingerprint of the endpoint set inputs: the endpoint set
+     * definition, the request, /info, /configuration and /map documents, entity schemas 
+     * (with all the referenced documents) and the root endpoint response.
+     * The whole /map is included, as the endpoint set may depend on other 
+     * endpoint sets (e.g. the root URL of the related endpoints' entry types).
+     * Only the root endpoint is loaded, so unchanged endpoint sets are 
+     * detected without requesting any other endpoint.
+     * 
+     * @param response the root endpoint response
+     * 
+     * @return the fingerprint or null if no fingerprints are used or 
+     *         some of the inputs are missing
+     */
+    private String fingerprint(Endpoint endpoint, JsonValue response) {
+        if (fingerprints == null || response == null || 
+            !model.digests.containsKey(BeaconMetadataSchema.BEACON_MAP_RESPONSE_SCHEMA)) {
+            return null;
+        }
+
+        final Set<String> inputs = new TreeSet();
+        final String root_schema = getSchemaHash(endpoint.getEntryType());
+        if (root_schema == null) {
+            return null;
+        }
+        inputs.add("root " + endpoint.getRootUrl() + " " + endpoint.getEntryType() + 
+                " " + root_schema);
+        for (EntryEndpoint entry_endpoint : getEntryEndpoints(endpoint)) {
+            final String schema = getSchemaHash(entry_endpoint.entryType);
+            if (schema == null) {
+                return null;
+            }
+            inputs.add(entry_endpoint.template + " " + entry_endpoint.entryType + " " + schema);
+        }
+        for (Map.Entry<BeaconMetadataSchema, String> digest : model.digests.entrySet()) {
+            inputs.add(digest.getKey().name() + " " + digest.getValue());
+        }
+        
+        final StringBuilder sb = new StringBuilder(dummy_request.toString());
+        sb.append('\n').append("aggregation ").append(aggregation)
+          .append(" sampling ").append(sampling).append(' ').append(page_size);
+        for (String input : inputs) {
+            sb.append('\n').append(input);
+        }
+        sb.append('\n').append(response.toString());
+        
+        return SchemaDocumentCache.sha256(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Gets the hash of the entity type schema including all the documents
+     * it references (together with the schema location).
+     * 
+     * @return the hash, empty string if there is no schema or 
+     *         null if the schema documents can't be loaded
+     */
+    private String getSchemaHash(String entityType) {
+        final String location = entityType == null ? null : getSchemaURL(entityType);
+        if (location == null) {
+            return "";
+        }
+        
+        String hash = schema_hashes.get(location);
+        if (hash == null) {
+            if (deadline.isExpired() || budget.isExhausted()) {
+                return null;
+            }
+            try {
+                hash = location + " " + SchemaDocumentCache.digest(
+                        new URI(location).toURL(), deadline.timeout());
+                schema_hashes.put(location, hash);
+            } catch (Exception ex) {
+                return null;
+            }
+        }
+        return hash;
+    }
+    
+    /**
+     * Reports previous validation messages when the endpoint set is unchanged.
+     * 
+     * @return true if previous results are reused
+     */
+    private boolean reuse(URI beacon_endpoint_uri, String endpoint_name, 
+            String fingerprint, ValidationObserver reporter) {
+        if (fingerprint != null) {
+            final ValidationMessagesBuffer messages = fingerprints.get(
+                    beacon_endpoint_uri.toString(), endpoint_name, fingerprint);
+            if (messages != null) {
+                reporter.message(String.format("  unchanged [%s], previous results reused", endpoint_name));
+                messages.replay(reporter);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void store(URI beacon_endpoint_uri, String endpoint_name, 
+            String fingerprint, ValidationMessagesBuffer messages) {
+        if (budget.isLimited()) {
+            return; // results may be incomplete
+        }
+        for (BeaconValidationMessage error : messages.getErrors()) {
+            if (error.type == BeaconValidationErrorType.TIMEOUT_ERROR || 
+                error.type == BeaconValidationErrorType.CONNECTION_ERROR) {
+                return; // incomplete validation or transient failure
+            }
+        }
+        fingerprints.put(beacon_endpoint_uri.toString(), endpoint_name, fingerprint, messages);
+    }
+
+    private JsonObject createRequest(long skip, int limit) {
 
         final JsonObjectBuilder builder = Json.createObjectBuilder();
         final BeaconInformationalResponseMeta meta = model.info == null ? null : model.info.getMeta();
@@ -383,12 +1075,24 @@ public class BeaconEndpointValidator {
         builder.add("query", Json.createObjectBuilder()
                 .add("testMode", true)
                 .add("requestedGranularity","record")
-                .add("pagination", Json.createObjectBuilder().add("skip", 0).add("limit", 1)));
+                .add("pagination", Json.createObjectBuilder().add("skip", skip).add("limit", limit)));
         
         return builder.build();
     }
 
-    private String resolve(URI base_uri, String url) {
+    private static JsonObject getJsonObject(JsonObject object, String name) {
+        final JsonValue value = object.get(name);
+        return value == null || value.getValueType() == JsonValue.ValueType.NULL 
+                ? null : value.asJsonObject();
+    }
+
+    private static JsonArray getJsonArray(JsonObject object, String name) {
+        final JsonValue value = object.get(name);
+        return value == null || value.getValueType() == JsonValue.ValueType.NULL 
+                ? null : value.asJsonArray();
+    }
+
+    String resolve(URI base_uri, String url) {
         url = url.replaceAll("\\{", "%7B");
         url = url.replaceAll("\\}", "%7D");
         try {
@@ -401,4 +1105,47 @@ public class BeaconEndpointValidator {
         
         return null;
     }
+
+    private record EntryEndpoint(String template, String entryType) {}
+    
+    
+    record EntriesValidation(JsonObject entry, int invalid) {}
+    
+    private record EntryValidation(boolean valid, List<ValidationError> errors) {}
+    
+    private record Page(long skip, int limit) {}
+
+    /**
+     * The fork-join pool for the parallel validation of entries, created on the first use.
+     */
+    private static class ValidationPool {
+        private final static ForkJoinPool POOL = new ForkJoinPool(
+                Runtime.getRuntime().availableProcessors(), 
+                pool -> {
+                    final ForkJoinWorkerThread thread = 
+                            ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                    thread.setName("beacon-validation-" + thread.getPoolIndex());
+                    return thread;
+                }, null, false);
+    }
+
+    /**
+     * The Beacon framework response schema, compiled on the first use.
+     */
+    private static class ResponseSchema {
+        private final static JsonSchema SCHEMA = load();
+        
+        private static JsonSchema load() {
+            try {
+                final URL url = BeaconEndpointValidator.class.getClassLoader().getResource(BeaconFrameworkSchema.BEACON_RESPONSE_SCHEMA.SCHEMA);
+                if (url != null) {
+                    return JsonSchemaCache.getInstance().read(url);
+                }
+            } catch(Exception ex) {
+                Logger.getLogger(BeaconEndpointValidator.class.getName()).log(Level.SEVERE, "error loading schema {0} {1}", 
+                        new Object[]{BeaconFrameworkSchema.BEACON_RESPONSE_SCHEMA.SCHEMA, ex.getMessage()});
+            }
+            return null;
+        }
+    }
 }
@@ -34,8 +34,8 @@ import es.bsc.inb.ga4gh.beacon.framework.model.v200.responses.BeaconInformationa
 import es.bsc.inb.ga4gh.beacon.framework.model.v200.responses.BeaconInformationalResponseMeta;
 import es.bsc.inb.ga4gh.beacon.framework.model.v200.responses.BeaconMapResponse;
 import es.elixir.bsc.json.schema.JsonSchemaException;
-import es.elixir.bsc.json.schema.JsonSchemaReader;
 import es.elixir.bsc.json.schema.model.JsonSchema;
+import jakarta.json.bind.Jsonb;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -56,16 +56,17 @@ public class BeaconMetadataModel {
     public final BeaconEntryTypesResponse entry_types;
     public final BeaconFilteringTermsResponse filtering_terms;
     
-    private final JsonSchemaReader reader;
+    String beacon;
     
-    private BeaconMetadataModel(Map<BeaconMetadataSchema, ? extends BeaconInformationalResponse> metadata) {
+    // hashes of the metadata documents (/info, /configuration) used in fingerprints
+    Map<BeaconMetadataSchema, String> digests = Map.of();
+    
+    BeaconMetadataModel(Map<BeaconMetadataSchema, ? extends BeaconInformationalResponse> metadata) {
         info = (BeaconInfoResponse)metadata.get(BeaconMetadataSchema.BEACON_INFO_RESPONSE_SCHEMA);
         map = (BeaconMapResponse)metadata.get(BeaconMetadataSchema.BEACON_MAP_RESPONSE_SCHEMA);
         configuration = (ServiceConfiguration)metadata.get(BeaconMetadataSchema.BEACON_CONFIGURATION_SCHEMA);
         entry_types = (BeaconEntryTypesResponse)metadata.get(BeaconMetadataSchema.BEACON_ENTRY_TYPES_SCHEMA);
         filtering_terms = (BeaconFilteringTermsResponse)metadata.get(BeaconMetadataSchema.BEACON_FILTERING_TERMS_SCHEMA);
-        
-        reader = JsonSchemaReader.getReader();
     }
 
     public JsonSchema loadSchema(String schemaEndpoint, String entityType, ValidationObserver reporter) {
@@ -73,7 +74,23 @@ public class BeaconMetadataModel {
             final URI uri = new URI(schemaEndpoint);
             if (uri.isAbsolute()) {
                 final URL url = uri.toURL();
-                return reader.read(url);
+                final SchemaCompileEvent event = new SchemaCompileEvent();
+                event.begin();
+                final long start = System.nanoTime();
+                try {
+                    final JsonSchema schema = JsonSchemaCache.getInstance().read(url);
+                    event.success = schema != null;
+                    return schema;
+                } finally {
+                    reporter.metric(new ValidationMetric(schemaEndpoint, 
+                            ValidationPhase.COMPILE, System.nanoTime() - start));
+                    if (event.shouldCommit()) {
+                        event.beacon = beacon;
+                        event.endpoint = schemaEndpoint;
+                        event.entryType = entityType;
+                        event.commit();
+                    }
+                }
             } else {
                 reporter.error(new BeaconValidationMessage(
                         BeaconValidationErrorType.CONTENT_ERROR,
@@ -98,16 +115,31 @@ public class BeaconMetadataModel {
         return null;
     }
 
-    private void loadInfoSchemas(ValidationObserver reporter) {
+    private void loadInfoSchemas(ValidationObserver reporter, ValidationDeadline deadline, 
+            ErrorBudget budget) {
         if (info != null) {
             final BeaconInformationalResponseMeta meta = info.getMeta();
             final List<SchemaPerEntity> returnedSchemas = meta.getReturnedSchemas();
             if (returnedSchemas != null) {
                 for (int i = 0, n = returnedSchemas.size(); i < n; i++) {
                     final SchemaPerEntity returnedSchema = returnedSchemas.get(i);
+                    if (deadline.isExpired()) {
+                        deadline.skip(returnedSchema.getSchema(), reporter);
+                        continue;
+                    }
+                    if (budget.isExhausted()) {
+                        budget.skip(returnedSchema.getSchema(), reporter);
+                        continue;
+                    }
+                    reporter.endpoint(returnedSchema.getSchema());
                     final List<BeaconValidationMessage> err = new ArrayList();
                     loadSchema(returnedSchema.getSchema(), returnedSchema.getEntityType(), 
-                            new ValidationErrorsCollector(err));
+                            new ValidationErrorsCollector(err) {
+                                @Override
+                                public void metric(ValidationMetric metric) {
+                                    reporter.metric(metric);
+                                }
+                            });
                     
                     // set up 'location'
                     for (BeaconValidationMessage e : err) {
@@ -122,16 +154,74 @@ public class BeaconMetadataModel {
     
     public static BeaconMetadataModel load(String beacon_api_endpoint,
             ValidationObserver reporter) {
+        return load(beacon_api_endpoint, reporter, ValidationDeadline.unlimited());
+    }
+
+    /**
+     * Loads and validates Beacon metadata within the time budget.
+     * 
+     * @param beacon_api_endpoint Beacon's API endpoint
+     * @param reporter validation process observer
+     * @param deadline the validation time budget
+     * 
+     * @return loaded metadata model
+     */
+    public static BeaconMetadataModel load(String beacon_api_endpoint,
+            ValidationObserver reporter, ValidationDeadline deadline) {
+        return load(beacon_api_endpoint, reporter, deadline, ErrorBudget.unlimited());
+    }
+
+    /**
+     * Loads and validates Beacon metadata within the time and errors budgets.
+     * 
+     * @param beacon_api_endpoint Beacon's API endpoint
+     * @param reporter validation process observer
+     * @param deadline the validation time budget
+     * @param budget the validation errors budget
+     * 
+     * @return loaded metadata model
+     */
+    public static BeaconMetadataModel load(String beacon_api_endpoint,
+            ValidationObserver reporter, ValidationDeadline deadline, 
+            ErrorBudget budget) {
+        return load(beacon_api_endpoint, null, reporter, deadline, budget);
+    }
+
+    /**
+     * Loads and validates Beacon metadata using provided JSON-B instance.
+     * The JSON-B may be shared between concurrent validations.
+     * 
+     * @param beacon_api_endpoint Beacon's API endpoint
+     * @param jsonb JSON-B used to parse metadata responses (null for the shared one)
+     * @param reporter validation process observer
+     * @param deadline the validation time budget
+     * @param budget the validation errors budget
+     * 
+     * @return loaded metadata model
+     */
+    public static BeaconMetadataModel load(String beacon_api_endpoint, Jsonb jsonb,
+            ValidationObserver reporter, ValidationDeadline deadline, 
+            ErrorBudget budget) {
         
-        final BeaconMetadataValidator metadata_validator = new BeaconMetadataValidator();
+        final MetadataLoadEvent event = new MetadataLoadEvent();
+        event.begin();
+
+        final BeaconMetadataValidator metadata_validator = new BeaconMetadataValidator(
+                jsonb, deadline, budget);
         
         final Map<BeaconMetadataSchema, ? extends BeaconInformationalResponse> metadata = 
                 metadata_validator.validate(beacon_api_endpoint, reporter);
         
         final BeaconMetadataModel model = new BeaconMetadataModel(metadata);
+        model.beacon = beacon_api_endpoint;
+        model.digests = metadata_validator.digests;
         
-        model.loadInfoSchemas(reporter);
-                
+        model.loadInfoSchemas(budget.observe(reporter), deadline, budget);
+        
+        if (event.shouldCommit()) {
+            event.beacon = beacon_api_endpoint;
+            event.commit();
+        }
         return model;
     }
 }
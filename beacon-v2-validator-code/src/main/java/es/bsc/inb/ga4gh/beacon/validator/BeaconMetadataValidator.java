@@ -32,24 +32,30 @@ import es.bsc.inb.ga4gh.beacon.framework.model.v200.responses.BeaconInfoResponse
 import es.bsc.inb.ga4gh.beacon.framework.model.v200.responses.BeaconInformationalResponse;
 import es.bsc.inb.ga4gh.beacon.framework.model.v200.responses.BeaconMapResponse;
 import es.elixir.bsc.json.schema.JsonSchemaException;
-import es.elixir.bsc.json.schema.JsonSchemaReader;
 import es.elixir.bsc.json.schema.ValidationError;
 import es.elixir.bsc.json.schema.model.JsonSchema;
 import jakarta.json.Json;
+import jakarta.json.JsonException;
 import jakarta.json.JsonReader;
 import jakarta.json.JsonValue;
 import jakarta.json.bind.Jsonb;
 import jakarta.json.bind.JsonbBuilder;
-import java.io.StringReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.HttpURLConnection;
 import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URL;
-import java.net.http.HttpResponse;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -61,21 +67,48 @@ import java.util.stream.Collectors;
 public class BeaconMetadataValidator {
 
     private final Jsonb jsonb;
+    private final ValidationDeadline deadline;
+    private final ErrorBudget budget;
     
-    private final Map<BeaconMetadataSchema, JsonSchema> schemas;
+    // compiled schemas (empty when the schema failed to load)
+    private final Map<BeaconMetadataSchema, Optional<JsonSchema>> schemas;
+    
+    // schemas' content hashes (empty when the schema documents can't be loaded)
+    private final Map<BeaconMetadataSchema, Optional<String>> versions;
+    
+    // metadata documents' hashes for the endpoint sets fingerprints
+    final Map<BeaconMetadataSchema, String> digests;
 
     public final Map<BeaconMetadataSchema, String> ENDPOINTS;
     public final Map<BeaconMetadataSchema, Class<? extends BeaconInformationalResponse>> MODELS;
     
     public BeaconMetadataValidator() {
-        this(JsonbBuilder.newBuilder().build());
+        this(null);
     }
     
     public BeaconMetadataValidator(Jsonb jsonb) {
+        this(jsonb, ValidationDeadline.unlimited());
+    }
+
+    public BeaconMetadataValidator(Jsonb jsonb, ValidationDeadline deadline) {
+        this(jsonb, deadline, ErrorBudget.unlimited());
+    }
+
+    /**
+     * @param jsonb JSON-B used to parse metadata responses (null for the shared one)
+     * @param deadline the validation time budget
+     * @param budget the validation errors budget
+     */
+    public BeaconMetadataValidator(Jsonb jsonb, ValidationDeadline deadline, 
+            ErrorBudget budget) {
         this.jsonb = jsonb;
+        this.deadline = deadline;
+        this.budget = budget;
 
-        schemas = Arrays.stream(BeaconMetadataSchema.values())
-                .collect(Collectors.toMap(s -> s, s -> loadSchema(s.SCHEMA)));
+        // schemas are compiled on the first use, failures are not retried
+        schemas = new ConcurrentHashMap();
+        versions = new ConcurrentHashMap();
+        digests = new ConcurrentHashMap();
         
         ENDPOINTS = Map.of(
             BeaconMetadataSchema.BEACON_INFO_RESPONSE_SCHEMA, "/info", 
@@ -92,35 +125,116 @@ public class BeaconMetadataValidator {
             BeaconMetadataSchema.BEACON_FILTERING_TERMS_SCHEMA, BeaconFilteringTermsResponse.class);
     }
 
+    /**
+     * Loads and validates all Beacon metadata endpoints.
+     * 
+     * Metadata is loaded concurrently, while the messages are reported in 
+     * the order of BeaconMetadataSchema enumeration.
+     * When the MetadataResponseCache is set, unchanged (304) responses 
+     * are not validated again and their cached errors are reported.
+     * 
+     * @param endpoint Beacon's API endpoint
+     * @param reporter validation process observer
+     * 
+     * @return the map of successfully parsed metadata responses
+     */
     public Map<BeaconMetadataSchema, ? extends BeaconInformationalResponse> validate(
             String endpoint, ValidationObserver reporter) {
         
+        final Map<BeaconMetadataSchema, ValidationMessagesBuffer> buffers = 
+                new EnumMap(BeaconMetadataSchema.class);
+        final Map<BeaconMetadataSchema, CompletableFuture<BeaconInformationalResponse>> responses = 
+                new EnumMap(BeaconMetadataSchema.class);
+
+        final MetadataResponseCache cache = MetadataResponseCache.getDefault();
+
+        for (BeaconMetadataSchema schema : BeaconMetadataSchema.values()) {
+            final ValidationMessagesBuffer buffer = new ValidationMessagesBuffer();
+            buffers.put(schema, buffer);
+            
+            final ValidationObserver observer = budget.observe(buffer);
+            final String url = getMetadataURL(endpoint, schema);
+            final MetadataResponseCache.Entry cached = cache == null ? null : cache.get(url);
+            final MetadataFetchEvent event = new MetadataFetchEvent();
+            event.begin();
+            responses.put(schema, loadMetadataResponseAsync(url, 
+                    cached != null && cached.schema() != null && 
+                    cached.schema().equals(getSchemaVersion(schema)) ? cached : null, 
+                    event, observer)
+                    .thenApply(response -> {
+                        if (response == null) {
+                            return null;
+                        }
+                        if (budget.isExhausted()) {
+                            budget.skip(url, observer);
+                            return null;
+                        }
+                        return validate(schema, url, response, cache, observer);
+                    })
+                    .whenComplete((response, th) -> {
+                        if (event.shouldCommit()) {
+                            event.beacon = endpoint;
+                            event.endpoint = url;
+                            event.schema = schema.SCHEMA;
+                            event.commit();
+                        }
+                    }));
+        }
+
         final Map<BeaconMetadataSchema, BeaconInformationalResponse> metadata = new HashMap();
-                
+        
         for (BeaconMetadataSchema schema : BeaconMetadataSchema.values()) {
-            final String json = loadMetadata(endpoint, schema, reporter);
-            if (json != null) {
-                try (JsonReader reader = Json.createReader(new StringReader(json))) {
-                    final JsonValue value = reader.readValue();
-                    final List<ValidationError> errors = new ArrayList();
-                    validate(schema, value, errors);
-                    for (ValidationError ve : errors) {
-                        reporter.error(new BeaconValidationMessage(ve));
-                    }
-                    final BeaconInformationalResponse response = parseMetadata(json, schema);
-                    if (response != null) {
-                        metadata.put(schema, response);
-                    }
-                }
+            final BeaconInformationalResponse response = responses.get(schema).join();
+            buffers.get(schema).replay(reporter);
+            if (response != null) {
+                metadata.put(schema, response);
             }
         }
         
         return metadata;
     }
 
+    private BeaconInformationalResponse validate(BeaconMetadataSchema schema, String url,
+            MetadataResponse response, MetadataResponseCache cache, 
+            ValidationObserver reporter) {
+
+        final MetadataResponseCache.Entry entry = response.entry();
+        List<BeaconValidationMessage> errors = entry.errors();
+        if (errors != null) {
+            reporter.message(String.format("not modified: %s", url));
+        } else {
+            final long start = System.nanoTime();
+            final List<ValidationError> found = new ArrayList();
+            validate(schema, response.json(), found, url);
+            errors = found.stream().map(BeaconValidationMessage::new).collect(Collectors.toList());
+            reporter.metric(new ValidationMetric(url, ValidationPhase.VALIDATE, 
+                    System.nanoTime() - start, 0, 1));
+            // limited budget stops the validation at the first errors
+            if (cache != null && !budget.isLimited() && 
+                (entry.etag() != null || entry.last_modified() != null)) {
+                cache.put(url, new MetadataResponseCache.Entry(entry.etag(), 
+                        entry.last_modified(), getSchemaVersion(schema), entry.body(), errors));
+            }
+        }
+        for (BeaconValidationMessage error : budget.limit(url, errors)) {
+            reporter.error(error);
+        }
+        if (ValidationFingerprints.getDefault() != null && 
+            (schema == BeaconMetadataSchema.BEACON_INFO_RESPONSE_SCHEMA || 
+             schema == BeaconMetadataSchema.BEACON_CONFIGURATION_SCHEMA ||
+             schema == BeaconMetadataSchema.BEACON_MAP_RESPONSE_SCHEMA)) {
+            digests.put(schema, SchemaDocumentCache.sha256(entry.body()));
+        }
+        final long start = System.nanoTime();
+        final BeaconInformationalResponse metadata = parseMetadata(entry.body(), schema);
+        reporter.metric(new ValidationMetric(url, ValidationPhase.BIND, System.nanoTime() - start));
+
+        return metadata;
+    }
+
     public List<BeaconValidationMessage> validate(BeaconMetadataSchema schema, JsonValue json) {
         final List<ValidationError> errors = new ArrayList();
-        validate(schema, json,  errors);
+        validate(schema, json, errors, null);
         return errors.stream().map(BeaconValidationMessage::new).collect(Collectors.toList());
     }
     
@@ -131,78 +245,326 @@ public class BeaconMetadataValidator {
 
     public <T> T parseMetadata(String json, Class<T> clazz) {
         try {
-            return jsonb.fromJson(json, clazz);
+            return (jsonb != null ? jsonb : SharedJsonb.JSONB).fromJson(json, clazz);
+        } catch (Exception ex) {}
+        
+        return null;
+    }
+
+    public BeaconInformationalResponse parseMetadata(byte[] json, BeaconMetadataSchema schema) {
+        final Class<? extends BeaconInformationalResponse> clazz = MODELS.get(schema);
+        return parseMetadata(json, clazz);
+    }
+
+    /**
+     * Binds the JSON document to the model directly from its bytes 
+     * (e.g. the response body as received).
+     * 
+     * @param <T> the model type
+     * @param json JSON document bytes
+     * @param clazz the model class
+     * 
+     * @return the model object or null if the document can't be bound
+     */
+    public <T> T parseMetadata(byte[] json, Class<T> clazz) {
+        try {
+            return (jsonb != null ? jsonb : SharedJsonb.JSONB).fromJson(
+                    new ByteArrayInputStream(json), clazz);
+        } catch (Exception ex) {}
+        
+        return null;
+    }
+
+    public BeaconInformationalResponse parseMetadata(JsonValue json, BeaconMetadataSchema schema) {
+        final Class<? extends BeaconInformationalResponse> clazz = MODELS.get(schema);
+        return parseMetadata(json, clazz);
+    }
+
+    /**
+     * Binds already parsed JSON document to the model.
+     * The document is serialized and bound via the JSON-B API, 
+     * so any JSON-B implementation may be used. 
+     * Responses are bound from their bytes instead (see parseMetadata(byte[], Class)).
+     * 
+     * @param <T> the model type
+     * @param json parsed JSON document
+     * @param clazz the model class
+     * 
+     * @return the model object or null if the document can't be bound
+     */
+    public <T> T parseMetadata(JsonValue json, Class<T> clazz) {
+        try {
+            return (jsonb != null ? jsonb : SharedJsonb.JSONB).fromJson(json.toString(), clazz);
         } catch (Exception ex) {}
         
         return null;
     }
 
+    /**
+     * @deprecated the document is parsed and serialized back, 
+     *             use loadMetadataDocumentAsync() instead
+     */
+    @Deprecated
     public String loadMetadata(String endpoint, BeaconMetadataSchema schema, ValidationObserver reporter) {
-        return loadMetadata(endpoint + ENDPOINTS.get(schema) + 
-                (schema == BeaconMetadataSchema.BEACON_FILTERING_TERMS_SCHEMA ? "?limit=0": ""), reporter);
+        return loadMetadataAsync(endpoint, schema, reporter).join();
+    }
+
+    /**
+     * @deprecated the document is parsed and serialized back, 
+     *             use loadMetadataDocumentAsync() instead
+     */
+    @Deprecated
+    public CompletableFuture<String> loadMetadataAsync(String endpoint, 
+            BeaconMetadataSchema schema, ValidationObserver reporter) {
+        return loadMetadataDocumentAsync(endpoint, schema, reporter)
+                .thenApply(json -> json == null ? null : json.toString());
+    }
+
+    public CompletableFuture<JsonValue> loadMetadataDocumentAsync(String endpoint, 
+            BeaconMetadataSchema schema, ValidationObserver reporter) {
+        return loadMetadataDocumentAsync(getMetadataURL(endpoint, schema), reporter);
     }
     
+    private String getMetadataURL(String endpoint, BeaconMetadataSchema schema) {
+        return endpoint + ENDPOINTS.get(schema) + 
+                (schema == BeaconMetadataSchema.BEACON_FILTERING_TERMS_SCHEMA ? "?limit=0": "");
+    }
+
+    /**
+     * @deprecated the document is parsed and serialized back, 
+     *             use loadMetadataDocumentAsync() instead
+     */
+    @Deprecated
     public String loadMetadata(String endpoint, ValidationObserver reporter) {
+        return loadMetadataAsync(endpoint, reporter).join();
+    }
+
+    /**
+     * @deprecated the document is parsed and serialized back, 
+     *             use loadMetadataDocumentAsync() instead
+     */
+    @Deprecated
+    public CompletableFuture<String> loadMetadataAsync(String endpoint, ValidationObserver reporter) {
+        return loadMetadataDocumentAsync(endpoint, reporter)
+                .thenApply(json -> json == null ? null : json.toString());
+    }
+
+    /**
+     * Asynchronously loads the metadata document.
+     * The document is parsed directly from the HTTP stream.
+     * All the errors are reported to the observer and null value is returned.
+     * 
+     * @param endpoint metadata endpoint URL
+     * @param reporter validation process observer
+     * 
+     * @return the future metadata document or null
+     */
+    public CompletableFuture<JsonValue> loadMetadataDocumentAsync(String endpoint, 
+            ValidationObserver reporter) {
+        final MetadataFetchEvent event = new MetadataFetchEvent();
+        event.begin();
+        return loadMetadataResponseAsync(endpoint, null, event, reporter)
+                .thenApply(response -> {
+                    if (event.shouldCommit()) {
+                        event.endpoint = endpoint;
+                        event.commit();
+                    }
+                    return response == null ? null : response.json();
+                });
+    }
+
+    /**
+     * Asynchronously loads the metadata response.
+     * When the cached response is provided, the request is conditional and 
+     * the cached response is returned if the server replies 304 (Not Modified).
+     * The body is read once, parsed for the validation and kept as received 
+     * for binding and caching. 
+     * Loaded responses have no validation errors (null) set.
+     * 
+     * @param endpoint metadata endpoint URL
+     * @param cached previously cached response or null
+     * @param event the flight recorder event to collect the request data
+     * @param observer validation process observer
+     * 
+     * @return the future metadata response or null
+     */
+    private CompletableFuture<MetadataResponse> loadMetadataResponseAsync(String endpoint, 
+            MetadataResponseCache.Entry cached, MetadataFetchEvent event, ValidationObserver observer) {
+
+        final ValidationObserver reporter = event.observe(observer);
+
         reporter.message(String.format("loading metadata: %s", endpoint));
-        try {
-            final URI uri = new URI(endpoint);
-            if (!uri.isAbsolute()) {
-                reporter.error(new BeaconValidationMessage(
-                        BeaconValidationErrorType.CONNECTION_ERROR,
-                        0,
-                        endpoint, null,
-                        String.format("relative Beacon endpoint %s", endpoint)));
-                return null;
-            }
+        reporter.endpoint(endpoint);
 
-            final HttpResponse<String> http_response = ValidatorBeaconRequest.getHttpResponse(uri);
-            if (http_response.statusCode() >= 300) {
-                reporter.error(new BeaconValidationMessage(
-                        BeaconValidationErrorType.CONNECTION_ERROR,
-                        http_response.statusCode(),
-                        http_response.uri().toString(), null,
-                        String.format("error loading from %s", endpoint)));
-                return null;
-            }
-            
-            final String content = http_response.body();
-            if (content == null) {
-                reporter.error(new BeaconValidationMessage(
-                        BeaconValidationErrorType.CONTENT_ERROR,
-                        HttpURLConnection.HTTP_NO_CONTENT,
-                        http_response.uri().toString(), null,
-                        String.format("empty response from %s", endpoint)));
-                return null;
-            }
-            return content;
-        } catch(Exception ex) {
+        if (deadline.isExpired()) {
+            deadline.skip(endpoint, reporter);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        if (budget.isExhausted()) {
+            budget.skip(endpoint, reporter);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        final URI uri;
+        try {
+            uri = new URI(endpoint);
+        } catch(URISyntaxException ex) {
             reporter.error(new BeaconValidationMessage(
                     BeaconValidationErrorType.CONNECTION_ERROR,
                     null, endpoint, null,
                     String.format("error loading from %s ", ex.getMessage())));
+            return CompletableFuture.completedFuture(null);
         }
-        
-        return null;
+
+        if (!uri.isAbsolute()) {
+            reporter.error(new BeaconValidationMessage(
+                    BeaconValidationErrorType.CONNECTION_ERROR,
+                    0,
+                    endpoint, null,
+                    String.format("relative Beacon endpoint %s", endpoint)));
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return ValidatorBeaconRequest.getHttpStreamAsync(uri, deadline.timeout(), 
+                cached == null ? null : cached.etag(), cached == null ? null : cached.last_modified())
+                .thenApply(http_response -> {
+                    ValidatorBeaconRequest.reportTimings(http_response, endpoint, reporter);
+                    event.status = http_response.statusCode();
+                    try {
+                        if (cached != null && 
+                            http_response.statusCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                            http_response.body().close();
+                            event.cached = true;
+                            return new MetadataResponse(cached, null);
+                        }
+
+                        if (http_response.statusCode() >= 300) {
+                            http_response.body().close();
+                            reporter.error(new BeaconValidationMessage(
+                                    BeaconValidationErrorType.CONNECTION_ERROR,
+                                    http_response.statusCode(),
+                                    http_response.uri().toString(), null,
+                                    String.format("error loading from %s", endpoint)));
+                            return null;
+                        }
+
+                        if (http_response.statusCode() == HttpURLConnection.HTTP_NO_CONTENT) {
+                            http_response.body().close();
+                            reporter.error(new BeaconValidationMessage(
+                                    BeaconValidationErrorType.CONTENT_ERROR,
+                                    HttpURLConnection.HTTP_NO_CONTENT,
+                                    http_response.uri().toString(), null,
+                                    String.format("empty response from %s", endpoint)));
+                            return null;
+                        }
+
+                        final byte[] body = ValidatorBeaconRequest.readBytes(http_response, 
+                                endpoint, reporter, deadline);
+                        final long start = System.nanoTime();
+                        final JsonValue json;
+                        try (JsonReader reader = Json.createReader(new ByteArrayInputStream(body))) {
+                            json = reader.readValue();
+                        } finally {
+                            reporter.metric(new ValidationMetric(endpoint, ValidationPhase.PARSE, 
+                                    System.nanoTime() - start));
+                        }
+                        return new MetadataResponse(new MetadataResponseCache.Entry(
+                                http_response.headers().firstValue("ETag").orElse(null),
+                                http_response.headers().firstValue("Last-Modified").orElse(null),
+                                null, body, null), json);
+                    } catch (BodyTooLargeException | JsonException ex) {
+                        if (deadline.isExpired()) {
+                            deadline.skip(endpoint, reporter);
+                            return null;
+                        }
+                        reporter.error(new BeaconValidationMessage(
+                                BeaconValidationErrorType.CONTENT_ERROR,
+                                null, http_response.uri().toString(), null, 
+                                ex.getMessage()));
+                        return null;
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                })
+                .exceptionally(th -> {
+                    Throwable ex = th instanceof CompletionException && 
+                            th.getCause() != null ? th.getCause() : th;
+                    if (ex instanceof UncheckedIOException && ex.getCause() != null) {
+                        ex = ex.getCause();
+                    }
+                    if (deadline.isExpired()) {
+                        deadline.skip(endpoint, reporter);
+                        return null;
+                    }
+                    reporter.error(new BeaconValidationMessage(
+                            BeaconValidationErrorType.CONNECTION_ERROR,
+                            null, endpoint, null,
+                            String.format("error loading from %s ", ex.getMessage())));
+                    return null;
+                });
     }
     
-    private boolean validate(BeaconMetadataSchema schema, JsonValue json, List<ValidationError> errors) {
-        final JsonSchema jschema = schemas.get(schema);
+    /**
+     * @param url the metadata endpoint to validate within the errors budget 
+     *            (null - no errors budget)
+     */
+    private boolean validate(BeaconMetadataSchema schema, JsonValue json, 
+            List<ValidationError> errors, String url) {
+        final JsonSchema jschema = schemas.computeIfAbsent(schema, 
+                s -> Optional.ofNullable(loadSchema(s.SCHEMA))).orElse(null);
         if (jschema == null) {
             errors.add(new ValidationError("internal error: unresolved schema"));
             return false;
         }
 
-        return jschema.validate(json, errors);
+        return url == null ? jschema.validate(json, errors) 
+                : budget.validate(jschema, json, errors, url);
     }
     
+    /**
+     * Identifies the schema by its location and the SHA-256 of its content
+     * including all the documents it references, so cached validation results 
+     * are not reused once the schema (or any referenced document) changes.
+     * 
+     * @return the schema version or null if the schema documents can't be loaded
+     */
+    private String getSchemaVersion(BeaconMetadataSchema schema) {
+        return versions.computeIfAbsent(schema, s -> {
+            final URL url = BeaconMetadataValidator.class.getClassLoader().getResource(s.SCHEMA);
+            if (url != null) {
+                try {
+                    return Optional.of(s.SCHEMA + " " + 
+                            SchemaDocumentCache.digest(url, deadline.timeout()));
+                } catch (IOException ex) {}
+            }
+            return Optional.empty();
+        }).orElse(null);
+    }
+
     private JsonSchema loadSchema(String path) {
         final URL url = BeaconMetadataValidator.class.getClassLoader().getResource(path);
         try {
-            return JsonSchemaReader.getReader().read(url);
+            return JsonSchemaCache.getInstance().read(url);
         } catch (JsonSchemaException ex) {
             Logger.getLogger(BeaconMetadataValidator.class.getName())
                     .log(Level.SEVERE, null, ex.error.message);
         }
         return null;
     }
+    
+    /**
+     * Loaded metadata response.
+     * 
+     * @param entry the response (the cached one when not modified)
+     * @param json parsed response body (null when not modified)
+     */
+    private record MetadataResponse(MetadataResponseCache.Entry entry, JsonValue json) {}
+
+    /**
+     * The JSON-B shared by validators, created on the first use.
+     */
+    private static class SharedJsonb {
+        private final static Jsonb JSONB = JsonbBuilder.create();
+    }
 }
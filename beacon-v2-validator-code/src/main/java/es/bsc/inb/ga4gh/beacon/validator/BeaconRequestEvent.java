@@ -0,0 +1,83 @@
+/**
+ * *****************************************************************************
+ * Copyright (C) 2024 ELIXIR ES, Spanish National Bioinformatics Institute (INB)
+ * and Barcelona Supercomputing Center (BSC)
+ *
+ * Modifications to the initial code base are copyright of their respective
+ * authors, or their employers as appropriate.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *****************************************************************************
+ */
+
+
+package es.bsc.inb.ga4gh.beacon.validator;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+
+/**
+ * The base of the Flight Recorder events for the HTTP requests.
+ * 
+ * @author Dmitry Repchevsky
+ */
+
+abstract class BeaconRequestEvent extends BeaconValidationEvent {
+    
+    @Label("Status")
+    int status;
+    
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+    
+    /**
+     * Creates the observer that records the number of downloaded bytes.
+     * 
+     * @param reporter the observer to forward the calls to
+     * 
+     * @return the recording observer
+     */
+    ValidationObserver observe(ValidationObserver reporter) {
+        if (!isEnabled()) {
+            return reporter;
+        }
+        return new ValidationObserver() {
+            @Override
+            public void error(BeaconValidationMessage error) {
+                reporter.error(error);
+            }
+
+            @Override
+            public void message(String message) {
+                reporter.message(message);
+            }
+
+            @Override
+            public void endpoint(String endpoint) {
+                reporter.endpoint(endpoint);
+            }
+
+            @Override
+            public void metric(ValidationMetric metric) {
+                if (metric.phase() == ValidationPhase.DOWNLOAD) {
+                    bytes += metric.bytes();
+                }
+                reporter.metric(metric);
+            }
+        };
+    }
+}
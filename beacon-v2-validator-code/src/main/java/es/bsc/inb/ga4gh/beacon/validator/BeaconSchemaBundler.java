@@ -0,0 +1,321 @@
+/**
+ * *****************************************************************************
+ * Copyright (C) 2024 ELIXIR ES, Spanish National Bioinformatics Institute (INB)
+ * and Barcelona Supercomputing Center (BSC)
+ *
+ * Modifications to the initial code base are copyright of their respective
+ * authors, or their employers as appropriate.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *****************************************************************************
+ */
+
+
+package es.bsc.inb.ga4gh.beacon.validator;
+
+import es.elixir.bsc.json.schema.JsonSchemaException;
+import es.elixir.bsc.json.schema.JsonSchemaReader;
+import jakarta.json.Json;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.json.JsonException;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonObjectBuilder;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+import jakarta.json.JsonWriter;
+import jakarta.json.JsonWriterFactory;
+import jakarta.json.stream.JsonGenerator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bundles the framework schemas with all the documents they reference 
+ * into self-contained schemas, so they are compiled without network access.
+ * 
+ * Referenced documents are embedded into the '$defs' of the bundle and all 
+ * the references are rewritten to the local JSON pointers.
+ * References to the GA4GH Beacon v2 repository 'main' branch are pinned 
+ * to the specified version (tag) of the specification.
+ * 
+ * Used by the 'bundle-schemas' build profile:
+ * <pre>
+ * BeaconSchemaBundler src/main/resources target/classes v2.0.0
+ * </pre>
+ * When any schema can't be bundled (e.g. no network access and no cached 
+ * documents) the bundler exits with an error, so the build fails.
+ * 
+ * @author Dmitry Repchevsky
+ */
+
+public class BeaconSchemaBundler {
+    
+    public final static String SPEC_REPOSITORY = "https://raw.githubusercontent.com/ga4gh-beacon/beacon-v2/";
+    public final static String SPEC_BRANCH = "main";
+    
+    private final static String DEFS = "$defs";
+    private final static int TIMEOUT = 30000;
+    
+    private final String version;
+    
+    // document location -> '$defs' key
+    private final Map<URI, String> keys;
+    
+    // '$defs' key -> embedded document
+    private final Map<String, JsonValue> defs;
+
+    /**
+     * @param version the version (tag) of the specification to pin references to
+     */
+    public BeaconSchemaBundler(String version) {
+        this.version = version;
+        
+        keys = new LinkedHashMap();
+        defs = new LinkedHashMap();
+    }
+
+    /**
+     * Bundles the schema with all the documents it references.
+     * 
+     * @param uri the schema location
+     * @param schema the schema document
+     * 
+     * @return self-contained schema
+     * 
+     * @throws IOException 
+     */
+    public JsonObject bundle(URI uri, JsonObject schema) throws IOException {
+        keys.clear();
+        defs.clear();
+        
+        final JsonObject root = rewrite(schema, uri, uri).asJsonObject();
+        if (defs.isEmpty()) {
+            return root;
+        }
+
+        final JsonObjectBuilder $defs = root.get(DEFS) instanceof JsonObject obj 
+                ? Json.createObjectBuilder(obj) : Json.createObjectBuilder();
+        for (Map.Entry<String, JsonValue> entry : defs.entrySet()) {
+            $defs.add(entry.getKey(), entry.getValue());
+        }
+
+        final JsonObjectBuilder builder = Json.createObjectBuilder(root).add(DEFS, $defs);
+        if (!root.containsKey("$comment")) {
+            builder.add("$comment", String.format("bundled from %s%s", SPEC_REPOSITORY, version));
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return the locations of the embedded documents of the last bundle
+     */
+    public List<URI> getDocuments() {
+        return new ArrayList(keys.keySet());
+    }
+
+    private JsonValue rewrite(JsonValue value, URI base, URI root) throws IOException {
+        switch(value.getValueType()) {
+            case OBJECT: 
+                final JsonObjectBuilder object = Json.createObjectBuilder();
+                for (Map.Entry<String, JsonValue> entry : value.asJsonObject().entrySet()) {
+                    if ("$ref".equals(entry.getKey()) && entry.getValue() instanceof JsonString ref) {
+                        object.add(entry.getKey(), reference(ref.getString(), base, root));
+                    } else {
+                        object.add(entry.getKey(), rewrite(entry.getValue(), base, root));
+                    }
+                }
+                return object.build();
+            case ARRAY:
+                final JsonArrayBuilder array = Json.createArrayBuilder();
+                for (JsonValue item : value.asJsonArray()) {
+                    array.add(rewrite(item, base, root));
+                }
+                return array.build();
+        }
+        return value;
+    }
+
+    /**
+     * Rewrites the reference to the local JSON pointer embedding the 
+     * referenced document when needed.
+     */
+    private String reference(String ref, URI base, URI root) throws IOException {
+        final URI target = pin(base.resolve(ref));
+        final String fragment = target.getRawFragment() == null ? "" : target.getRawFragment();
+        if (!fragment.isEmpty() && !fragment.startsWith("/")) {
+            throw new IOException(String.format("unsupported anchor reference %s in %s", ref, base));
+        }
+
+        final URI document;
+        try {
+            document = new URI(target.getScheme(), target.getSchemeSpecificPart(), null);
+        } catch (URISyntaxException ex) {
+            throw new IOException(ex);
+        }
+
+        if (document.equals(root)) {
+            return "#" + fragment;
+        }
+        
+        String key = keys.get(document);
+        if (key == null) {
+            key = getKey(document);
+            keys.put(document, key);
+            defs.put(key, JsonValue.NULL); // keep the order for cyclic references
+            defs.put(key, embed(document, root));
+        }
+
+        return "#/" + DEFS + "/" + key.replace("~", "~0").replace("/", "~1") + fragment;
+    }
+
+    /**
+     * Loads the referenced document removing its identifier and dialect, 
+     * so the rewritten pointers are resolved against the bundle.
+     */
+    private JsonValue embed(URI document, URI root) throws IOException {
+        final JsonValue value;
+        final URLConnection connection = document.toURL().openConnection();
+        connection.setConnectTimeout(TIMEOUT);
+        connection.setReadTimeout(TIMEOUT);
+        try (InputStream in = connection.getInputStream();
+             JsonReader reader = Json.createReader(in)) {
+            value = reader.readValue();
+        } catch (JsonException ex) {
+            throw new IOException(String.format("error parsing %s: %s", document, ex.getMessage()));
+        }
+        
+        final JsonValue embedded = rewrite(value, document, root);
+        if (embedded.getValueType() != JsonValue.ValueType.OBJECT) {
+            return embedded;
+        }
+        return Json.createObjectBuilder(embedded.asJsonObject())
+                .remove("$id").remove("$schema").build();
+    }
+
+    private URI pin(URI uri) {
+        final String location = uri.toString();
+        if (location.startsWith(SPEC_REPOSITORY + SPEC_BRANCH + "/")) {
+            return URI.create(SPEC_REPOSITORY + version + "/" + 
+                    location.substring(SPEC_REPOSITORY.length() + SPEC_BRANCH.length() + 1));
+        }
+        return uri;
+    }
+
+    /**
+     * @return the '$defs' key (e.g. 'framework.json.responses.beaconInfoResponse.json')
+     */
+    private String getKey(URI document) {
+        final String location = document.toString();
+        final String prefix = SPEC_REPOSITORY + version + "/";
+        final String key = location.startsWith(prefix) 
+                ? location.substring(prefix.length()) 
+                : document.getHost() == null ? document.getPath() : document.getHost() + document.getPath();
+        return key.replaceAll("^/+", "").replace('/', '.');
+    }
+
+    /**
+     * Bundles all the metadata and framework schemas.
+     * Exits with an error when any of the schemas can't be bundled.
+     * 
+     * @param args schemas source directory, output directory and the specification version
+     */
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.err.println("usage: BeaconSchemaBundler <source dir> <output dir> <version>");
+            System.exit(1);
+        }
+        
+        final Path source = Paths.get(args[0]);
+        final Path output = Paths.get(args[1]);
+        final String version = args[2];
+        
+        final List<String> schemas = new ArrayList();
+        for (BeaconMetadataSchema schema : BeaconMetadataSchema.values()) {
+            schemas.add(schema.SCHEMA);
+        }
+        for (BeaconFrameworkSchema schema : BeaconFrameworkSchema.values()) {
+            schemas.add(schema.SCHEMA);
+        }
+
+        try {
+            // documents are cached, so the schemas may be bundled offline later
+            SchemaDocumentCache.install(null, Boolean.getBoolean("offline"));
+        } catch (IOException ex) {
+            System.err.println(String.format("[WARNING] no schema documents cache: %s", ex.getMessage()));
+        }
+
+        final BeaconSchemaBundler bundler = new BeaconSchemaBundler(version);
+        int failed = 0;
+        for (String schema : schemas) {
+            try {
+                bundle(bundler, source.resolve(schema), output.resolve(schema));
+                System.out.println(String.format("bundled %s (%s): %d documents", 
+                        schema, version, bundler.getDocuments().size()));
+            } catch (IOException | JsonSchemaException | RuntimeException ex) {
+                failed++;
+                System.err.println(String.format("[ERROR] %s is not bundled: %s", schema, ex));
+            }
+        }
+        
+        if (failed > 0) {
+            System.err.println(String.format("[ERROR] %d schemas are not bundled", failed));
+            System.exit(1);
+        }
+    }
+    
+    /**
+     * Bundles the schema replacing the output file only when the bundle
+     * compiles, so the original schema stays in place otherwise.
+     */
+    private static void bundle(BeaconSchemaBundler bundler, Path file, Path target) 
+            throws IOException, JsonSchemaException {
+
+        final JsonObject json;
+        try (JsonReader reader = Json.createReader(Files.newBufferedReader(file))) {
+            json = reader.readObject();
+        }
+
+        final JsonObject bundle = bundler.bundle(file.toUri(), json);
+
+        Files.createDirectories(target.getParent());
+        final Path tmp = Files.createTempFile(target.getParent(), null, ".json");
+        try {
+            final JsonWriterFactory factory = Json.createWriterFactory(
+                    Map.of(JsonGenerator.PRETTY_PRINTING, true));
+            try (JsonWriter writer = factory.createWriter(Files.newBufferedWriter(tmp))) {
+                writer.write(bundle);
+            }
+
+            // compile the bundle to check all the pointers are resolved
+            JsonSchemaReader.getReader().read(tmp.toUri().toURL());
+            
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+}
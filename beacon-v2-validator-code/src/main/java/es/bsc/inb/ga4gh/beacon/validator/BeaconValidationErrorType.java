@@ -32,5 +32,6 @@ package es.bsc.inb.ga4gh.beacon.validator;
 public enum BeaconValidationErrorType {
     CONNECTION_ERROR,
     CONTENT_ERROR,
-    JSON_SCHEMA_ERROR
+    JSON_SCHEMA_ERROR,
+    TIMEOUT_ERROR
 }
@@ -0,0 +1,173 @@
+/**
+ * *****************************************************************************
+ * Copyright (C) 2024 ELIXIR ES, Spanish National Bioinformatics Institute (INB)
+ * and Barcelona Supercomputing Center (BSC)
+ *
+ * Modifications to the initial code base are copyright of their respective
+ * authors, or their employers as appropriate.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *****************************************************************************
+ */
+
+package es.bsc.inb.ga4gh.beacon.validator;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ValidationObserver that collects validation errors reported from many threads.
+ * 
+ * Every thread appends errors to its own buffer, so reporting threads do not
+ * contend for a shared lock. Buffers are merged (in the reporting order) 
+ * when the errors are read. Errors are also counted by their type and by 
+ * the endpoint (see ValidationObserver.endpoint()) they were reported for.
+ * 
+ * @author Dmitry Repchevsky
+ */
+
+public class ConcurrentValidationErrorsCollector implements ValidationObserver {
+    
+    private final AtomicLong sequence;
+    private final Queue<ThreadBuffer> buffers;
+    private final ThreadLocal<ThreadBuffer> buffer;
+    
+    private final Map<BeaconValidationErrorType, LongAdder> types;
+    private final Map<String, LongAdder> endpoints;
+
+    public ConcurrentValidationErrorsCollector() {
+        sequence = new AtomicLong();
+        buffers = new ConcurrentLinkedQueue();
+        buffer = ThreadLocal.withInitial(() -> {
+            final ThreadBuffer b = new ThreadBuffer();
+            buffers.add(b);
+            return b;
+        });
+        
+        types = new EnumMap(BeaconValidationErrorType.class);
+        for (BeaconValidationErrorType type : BeaconValidationErrorType.values()) {
+            types.put(type, new LongAdder());
+        }
+        endpoints = new ConcurrentHashMap();
+    }
+
+    @Override
+    public void error(BeaconValidationMessage error) {
+        final ThreadBuffer b = buffer.get();
+        b.add(sequence.getAndIncrement(), error);
+        
+        if (error.type != null) {
+            types.get(error.type).increment();
+        }
+        endpoints.computeIfAbsent(b.endpoint, e -> new LongAdder()).increment();
+    }
+
+    @Override
+    public void endpoint(String endpoint) {
+        buffer.get().endpoint = endpoint == null ? "" : endpoint;
+    }
+
+    /**
+     * @return all collected errors in the order they were reported
+     */
+    public List<BeaconValidationMessage> getErrors() {
+        final List<Entry> entries = new ArrayList();
+        for (ThreadBuffer b : buffers) {
+            b.copy(entries);
+        }
+        entries.sort(Comparator.comparingLong(Entry::sequence));
+        
+        final List<BeaconValidationMessage> errors = new ArrayList(entries.size());
+        for (Entry entry : entries) {
+            errors.add(entry.error());
+        }
+        return errors;
+    }
+
+    /**
+     * @return the number of collected errors
+     */
+    public long count() {
+        long count = 0;
+        for (LongAdder adder : endpoints.values()) {
+            count += adder.sum();
+        }
+        return count;
+    }
+
+    /**
+     * @param type the type of the errors
+     * @return the number of collected errors of the type
+     */
+    public long count(BeaconValidationErrorType type) {
+        return types.get(type).sum();
+    }
+    
+    /**
+     * @return the number of errors of each type
+     */
+    public Map<BeaconValidationErrorType, Long> countByType() {
+        final Map<BeaconValidationErrorType, Long> counts = new EnumMap(BeaconValidationErrorType.class);
+        for (Map.Entry<BeaconValidationErrorType, LongAdder> entry : types.entrySet()) {
+            final long count = entry.getValue().sum();
+            if (count > 0) {
+                counts.put(entry.getKey(), count);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * @return the number of errors for each endpoint 
+     *         (empty string for errors reported before any endpoint)
+     */
+    public Map<String, Long> countByEndpoint() {
+        final Map<String, Long> counts = new TreeMap();
+        for (Map.Entry<String, LongAdder> entry : endpoints.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().sum());
+        }
+        return counts;
+    }
+
+    /**
+     * Errors buffer written only by its owner thread. 
+     * The lock is only contended when errors are read.
+     */
+    private static class ThreadBuffer {
+        
+        private final List<Entry> entries = new ArrayList();
+        private String endpoint = "";
+        
+        synchronized void add(long sequence, BeaconValidationMessage error) {
+            entries.add(new Entry(sequence, error));
+        }
+        
+        synchronized void copy(List<Entry> list) {
+            list.addAll(entries);
+        }
+    }
+    
+    private record Entry(long sequence, BeaconValidationMessage error) {}
+}
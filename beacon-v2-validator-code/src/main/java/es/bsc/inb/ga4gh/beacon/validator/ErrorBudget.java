@@ -0,0 +1,297 @@
+/**
+ * *****************************************************************************
+ * Copyright (C) 2024 ELIXIR ES, Spanish National Bioinformatics Institute (INB)
+ * and Barcelona Supercomputing Center (BSC)
+ *
+ * Modifications to the initial code base are copyright of their respective
+ * authors, or their employers as appropriate.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *****************************************************************************
+ */
+
+package es.bsc.inb.ga4gh.beacon.validator;
+
+import es.elixir.bsc.json.schema.ValidationError;
+import es.elixir.bsc.json.schema.model.JsonSchema;
+import jakarta.json.JsonValue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The errors budget for the validation run.
+ * 
+ * The validation of the endpoint stops once its errors reach the endpoint 
+ * budget and the whole beacon validation stops once the reported errors 
+ * reach the beacon budget. Endpoints which are not validated due to the 
+ * exhausted budget are reported as skipped (via message). 
+ * The pass/fail budget stops the validation at the first error found.
+ * JSON Schema validation of a document stops at the error which exhausts 
+ * the budget (see validate()), so the rest of the document is not validated.
+ * Endpoint errors are charged against the endpoint budget by the endpoint 
+ * location, so all the validation phases of the endpoint share the same budget.
+ * 
+ * @author Dmitry Repchevsky
+ */
+
+public class ErrorBudget {
+    
+    private final static ErrorBudget UNLIMITED = new ErrorBudget(0, 0);
+    
+    private final int max_endpoint_errors;
+    private final int max_beacon_errors;
+    
+    private final AtomicInteger errors;
+    private final Map<String, AtomicInteger> endpoint_errors;
+    
+    /**
+     * @param max_endpoint_errors maximum errors for every endpoint (0 for no limit)
+     * @param max_beacon_errors maximum errors for the beacon (0 for no limit)
+     */
+    public ErrorBudget(int max_endpoint_errors, int max_beacon_errors) {
+        this.max_endpoint_errors = Math.max(0, max_endpoint_errors);
+        this.max_beacon_errors = Math.max(0, max_beacon_errors);
+        
+        errors = new AtomicInteger();
+        endpoint_errors = new ConcurrentHashMap();
+    }
+    
+    /**
+     * @return the budget without any errors limit
+     */
+    public static ErrorBudget unlimited() {
+        return UNLIMITED;
+    }
+
+    /**
+     * @return the budget that stops the validation at the first error
+     */
+    public static ErrorBudget passFail() {
+        return new ErrorBudget(1, 1);
+    }
+
+    /**
+     * @return true if there is any errors limit set
+     */
+    public boolean isLimited() {
+        return max_endpoint_errors > 0 || max_beacon_errors > 0;
+    }
+
+    /**
+     * @return true if the beacon errors budget is exhausted
+     */
+    public boolean isExhausted() {
+        return max_beacon_errors > 0 && errors.get() >= max_beacon_errors;
+    }
+
+    /**
+     * Checks whether the budget is exhausted taking into account errors 
+     * found for the endpoint but not yet charged or reported.
+     * 
+     * @param endpoint the endpoint location
+     * @param uncharged found endpoint errors not yet charged (see limit())
+     * @param unreported found endpoint errors not yet reported
+     * 
+     * @return true if either endpoint or beacon errors budget is exhausted
+     */
+    public boolean isExhausted(String endpoint, int uncharged, int unreported) {
+        return max_endpoint_errors > 0 && getErrors(endpoint) + uncharged >= max_endpoint_errors ||
+               max_beacon_errors > 0 && errors.get() + unreported >= max_beacon_errors;
+    }
+    
+    /**
+     * @return the number of reported errors
+     */
+    public int getErrors() {
+        return errors.get();
+    }
+
+    /**
+     * @param endpoint the endpoint location
+     * 
+     * @return the number of errors charged against the endpoint budget
+     */
+    public int getErrors(String endpoint) {
+        final AtomicInteger counter = endpoint_errors.get(endpoint == null ? "" : endpoint);
+        return counter == null ? 0 : counter.get();
+    }
+    
+    /**
+     * Limits the endpoint errors to the remaining endpoint budget and 
+     * charges the accepted errors against it.
+     * 
+     * @param <T> the errors type
+     * @param endpoint the endpoint location
+     * @param errors the errors found for the endpoint
+     * 
+     * @return the errors within the budget
+     */
+    public <T> List<T> limit(String endpoint, List<T> errors) {
+        if (max_endpoint_errors <= 0 || errors.isEmpty()) {
+            return errors;
+        }
+        final AtomicInteger counter = endpoint_errors.computeIfAbsent(
+                endpoint == null ? "" : endpoint, e -> new AtomicInteger());
+        int charged;
+        int accepted;
+        do {
+            charged = counter.get();
+            accepted = Math.min(errors.size(), Math.max(0, max_endpoint_errors - charged));
+        } while (accepted > 0 && !counter.compareAndSet(charged, charged + accepted));
+
+        return accepted < errors.size() ? errors.subList(0, accepted) : errors;
+    }
+
+    /**
+     * Validates the JSON document against the schema within the errors budget.
+     * The validation stops at the error which exhausts either the endpoint 
+     * budget or the beacon budget, the errors found so far are kept.
+     * 
+     * Stopping relies on the JSON Schema validator adding only final errors 
+     * to the provided list (jaronuinga collects the errors of 'anyOf', 'oneOf', 
+     * 'not' and 'if' subschemas into its own lists).
+     * 
+     * @param schema the JSON Schema
+     * @param value the JSON document to validate
+     * @param errors the list to add found errors to
+     * @param endpoint the endpoint location
+     * @param uncharged found endpoint errors not yet charged (see limit())
+     * @param unreported found endpoint errors not yet reported
+     * 
+     * @return true if the document is valid
+     */
+    public boolean validate(JsonSchema schema, JsonValue value, List<ValidationError> errors, 
+            String endpoint, int uncharged, int unreported) {
+        if (!isLimited()) {
+            return schema.validate(value, errors);
+        }
+        
+        int capacity = Integer.MAX_VALUE;
+        if (max_endpoint_errors > 0) {
+            capacity = Math.min(capacity, max_endpoint_errors - getErrors(endpoint) - uncharged);
+        }
+        if (max_beacon_errors > 0) {
+            capacity = Math.min(capacity, max_beacon_errors - this.errors.get() - unreported);
+        }
+
+        final BoundedErrors<ValidationError> found = new BoundedErrors(Math.max(1, capacity));
+        try {
+            return schema.validate(value, found);
+        } catch (ExhaustedException ex) {
+            return false;
+        } finally {
+            errors.addAll(found);
+        }
+    }
+
+    /**
+     * Validates the whole JSON document (e.g. the response) against the schema 
+     * within the errors budget.
+     * 
+     * @see #validate(JsonSchema, JsonValue, List, String, int, int)
+     */
+    public boolean validate(JsonSchema schema, JsonValue value, List<ValidationError> errors, 
+            String endpoint) {
+        return validate(schema, value, errors, endpoint, 0, 0);
+    }
+
+    /**
+     * Reports the endpoint as skipped due to the exhausted errors budget.
+     * 
+     * @param endpoint the skipped endpoint
+     * @param reporter validation process observer
+     */
+    public void skip(String endpoint, ValidationObserver reporter) {
+        reporter.message(String.format("skipped (errors budget exhausted): %s", endpoint));
+    }
+    
+    /**
+     * Creates the observer that counts the reported errors.
+     * 
+     * @param reporter the observer to forward the calls to
+     * 
+     * @return the counting observer
+     */
+    public ValidationObserver observe(ValidationObserver reporter) {
+        if (!isLimited()) {
+            return reporter;
+        }
+        return new ValidationObserver() {
+            @Override
+            public void error(BeaconValidationMessage error) {
+                errors.incrementAndGet();
+                reporter.error(error);
+            }
+
+            @Override
+            public void message(String message) {
+                reporter.message(message);
+            }
+
+            @Override
+            public void endpoint(String endpoint) {
+                reporter.endpoint(endpoint);
+            }
+
+            @Override
+            public void metric(ValidationMetric metric) {
+                reporter.metric(metric);
+            }
+        };
+    }
+    
+    /**
+     * The errors list which stops the validation once it is full.
+     */
+    private static class BoundedErrors<T> extends ArrayList<T> {
+        
+        private final int capacity;
+        
+        BoundedErrors(int capacity) {
+            this.capacity = capacity;
+        }
+        
+        @Override
+        public boolean add(T error) {
+            super.add(error);
+            if (size() >= capacity) {
+                throw new ExhaustedException();
+            }
+            return true;
+        }
+
+        @Override
+        public boolean addAll(Collection<? extends T> errors) {
+            for (T error : errors) {
+                add(error);
+            }
+            return !errors.isEmpty();
+        }
+    }
+    
+    private static class ExhaustedException extends RuntimeException {
+        
+        private final static long serialVersionUID = 1L;
+
+        ExhaustedException() {
+            super(null, null, false, false);
+        }
+    }
+}
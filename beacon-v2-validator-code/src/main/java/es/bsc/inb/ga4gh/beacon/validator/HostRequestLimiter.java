@@ -0,0 +1,80 @@
+/**
+ * *****************************************************************************
+ * Copyright (C) 2024 ELIXIR ES, Spanish National Bioinformatics Institute (INB)
+ * and Barcelona Supercomputing Center (BSC)
+ *
+ * Modifications to the initial code base are copyright of their respective
+ * authors, or their employers as appropriate.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *****************************************************************************
+ */
+
+package es.bsc.inb.ga4gh.beacon.validator;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking limiter of concurrent requests to the same host.
+ * Requests that exceed the limit wait in FIFO order for the released permits.
+ * 
+ * @author Dmitry Repchevsky
+ */
+
+class HostRequestLimiter {
+    
+    private final Queue<CompletableFuture<Void>> waiters = new ArrayDeque();
+    private int permits;
+    
+    HostRequestLimiter(int permits) {
+        this.permits = permits;
+    }
+    
+    /**
+     * @return the future that completes once the permit is acquired
+     */
+    synchronized CompletableFuture<Void> acquire() {
+        if (permits > 0) {
+            permits--;
+            return CompletableFuture.completedFuture(null);
+        }
+        final CompletableFuture<Void> waiter = new CompletableFuture();
+        waiters.add(waiter);
+        return waiter;
+    }
+    
+    /**
+     * Passes the permit to the next waiting request (if any).
+     */
+    void release() {
+        while (true) {
+            final CompletableFuture<Void> waiter;
+            synchronized(this) {
+                waiter = waiters.poll();
+                if (waiter == null) {
+                    permits++;
+                    return;
+                }
+            }
+            // skip cancelled waiters
+            if (waiter.complete(null)) {
+                return;
+            }
+        }
+    }
+}
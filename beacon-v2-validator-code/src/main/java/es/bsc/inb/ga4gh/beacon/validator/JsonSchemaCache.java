@@ -0,0 +1,156 @@
+/**
+ * *****************************************************************************
+ * Copyright (C) 2024 ELIXIR ES, Spanish National Bioinformatics Institute (INB)
+ * and Barcelona Supercomputing Center (BSC)
+ *
+ * Modifications to the initial code base are copyright of their respective
+ * authors, or their employers as appropriate.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *****************************************************************************
+ */
+
+package es.bsc.inb.ga4gh.beacon.validator;
+
+import es.elixir.bsc.json.schema.JsonSchemaException;
+import es.elixir.bsc.json.schema.JsonSchemaReader;
+import es.elixir.bsc.json.schema.model.JsonSchema;
+import java.net.URL;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * The process-wide cache of compiled JSON Schemas keyed by the schema URL.
+ * 
+ * The cache is bounded in size (least recently used schemas are evicted first)
+ * and the schemas expire after the configured time to live.
+ * Concurrent requests for the same schema wait for the single compilation.
+ * 
+ * @author Dmitry Repchevsky
+ */
+
+public class JsonSchemaCache {
+    
+    public final static int DEFAULT_MAX_SIZE = 256;
+    public final static Duration DEFAULT_TIME_TO_LIVE = Duration.ofHours(1);
+    
+    private final static JsonSchemaCache INSTANCE = new JsonSchemaCache();
+    
+    private final Map<String, Entry> schemas;
+    
+    private volatile int max_size;
+    private volatile long ttl;
+
+    public JsonSchemaCache() {
+        this(DEFAULT_MAX_SIZE, DEFAULT_TIME_TO_LIVE);
+    }
+
+    /**
+     * @param max_size maximum number of the cached schemas
+     * @param ttl schemas' time to live (null or zero for no expiration)
+     */
+    public JsonSchemaCache(int max_size, Duration ttl) {
+        setMaxSize(max_size);
+        setTimeToLive(ttl);
+
+        schemas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > JsonSchemaCache.this.max_size;
+            }
+        };
+    }
+
+    /**
+     * @return the cache shared by all validators
+     */
+    public static JsonSchemaCache getInstance() {
+        return INSTANCE;
+    }
+
+    public final void setMaxSize(int max_size) {
+        this.max_size = Math.max(1, max_size);
+    }
+
+    public final void setTimeToLive(Duration ttl) {
+        this.ttl = ttl == null ? 0 : ttl.toNanos();
+    }
+
+    /**
+     * Returns the cached schema or compiles it when not found (or expired).
+     * 
+     * @param url the schema location
+     * @return the compiled JSON Schema
+     * 
+     * @throws JsonSchemaException 
+     */
+    public JsonSchema read(URL url) throws JsonSchemaException {
+        final String key = url.toString();
+        
+        final Entry entry;
+        final boolean found;
+        synchronized(schemas) {
+            final Entry cached = schemas.get(key);
+            if (cached != null && (cached.expires == 0 || cached.expires - System.nanoTime() > 0)) {
+                entry = cached;
+                found = true;
+            } else {
+                entry = new Entry(new CompletableFuture(), ttl == 0 ? 0 : System.nanoTime() + ttl);
+                schemas.put(key, entry);
+                found = false;
+            }
+        }
+
+        if (found) {
+            try {
+                return entry.schema.join();
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof JsonSchemaException e) {
+                    throw e;
+                }
+                throw ex;
+            }
+        }
+
+        try {
+            final JsonSchema schema = JsonSchemaReader.getReader().read(url);
+            entry.schema.complete(schema);
+            return schema;
+        } catch (Throwable th) {
+            // do not cache failed schemas, errors (i.e. StackOverflowError) 
+            // must also release the threads waiting for this compilation
+            synchronized(schemas) {
+                schemas.remove(key, entry);
+            }
+            entry.schema.completeExceptionally(th);
+            throw th;
+        }
+    }
+
+    /**
+     * Removes all the schemas from the cache.
+     */
+    public void clear() {
+        synchronized(schemas) {
+            schemas.clear();
+        }
+    }
+
+    private record Entry(CompletableFuture<JsonSchema> schema, long expires) {}
+}
@@ -0,0 +1,221 @@
+/**
+ * *****************************************************************************
+ * Copyright (C) 2024 ELIXIR ES, Spanish National Bioinformatics Institute (INB)
+ * and Barcelona Supercomputing Center (BSC)
+ *
+ * Modifications to the initial code base are copyright of their respective
+ * authors, or their employers as appropriate.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *****************************************************************************
+ */
+
+package es.bsc.inb.ga4gh.beacon.validator;
+
+import jakarta.json.Json;
+import jakarta.json.JsonArray;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.json.JsonNumber;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonObjectBuilder;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+import jakarta.json.JsonWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persistent cache of Beacon metadata responses.
+ * 
+ * Responses are stored together with their ETag / Last-Modified validators 
+ * and the validation result, so when the server replies with 304 (Not Modified)
+ * both the body and its validation errors are reused.
+ * The body is kept as received (the '.body' file next to the entry), 
+ * so it is bound without being parsed and serialized again.
+ * 
+ * @author Dmitry Repchevsky
+ */
+
+public class MetadataResponseCache {
+    
+    private static volatile MetadataResponseCache cache;
+    
+    private final Path dir;
+    
+    public MetadataResponseCache(Path dir) throws IOException {
+        this.dir = Files.createDirectories(dir);
+    }
+    
+    /**
+     * @return the cache used by metadata validators or null if not set
+     */
+    public static MetadataResponseCache getDefault() {
+        return cache;
+    }
+
+    /**
+     * Sets the cache used by metadata validators.
+     * 
+     * @param cache the cache or null to disable caching
+     */
+    public static void setDefault(MetadataResponseCache cache) {
+        MetadataResponseCache.cache = cache;
+    }
+
+    /**
+     * Gets the cached response.
+     * 
+     * @param url metadata endpoint URL
+     * @return the cached entry or null
+     */
+    public Entry get(String url) {
+        final Path file = file(url, ".json");
+        final Path body = file(url, ".body");
+        if (Files.exists(file) && Files.exists(body)) {
+            try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+                 JsonReader reader = Json.createReader(in)) {
+                final JsonObject entry = reader.readObject();
+                if (url.equals(entry.getString("url", null))) {
+                    return new Entry(entry.getString("etag", null), 
+                            entry.getString("last_modified", null),
+                            entry.getString("schema", null),
+                            Files.readAllBytes(body),
+                            readErrors(entry.getJsonArray("errors")));
+                }
+            } catch (Exception ex) {
+                Logger.getLogger(MetadataResponseCache.class.getName()).log(Level.WARNING, 
+                        "error reading {0} {1}", new Object[]{file, ex.getMessage()});
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Stores the response and its validation result.
+     * 
+     * @param url metadata endpoint URL
+     * @param entry the response to be cached
+     */
+    public void put(String url, Entry entry) {
+        final JsonObjectBuilder builder = Json.createObjectBuilder().add("url", url);
+        if (entry.etag() != null) {
+            builder.add("etag", entry.etag());
+        }
+        if (entry.last_modified() != null) {
+            builder.add("last_modified", entry.last_modified());
+        }
+        if (entry.schema() != null) {
+            builder.add("schema", entry.schema());
+        }
+        builder.add("errors", writeErrors(entry.errors()));
+        
+        final Path file = file(url, ".json");
+        try {
+            // the body goes first, so the entry never refers to a missing body
+            final Path body = Files.createTempFile(dir, null, null);
+            Files.write(body, entry.body());
+            Files.move(body, file(url, ".body"), 
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            final Path tmp = Files.createTempFile(dir, null, null);
+            try (Writer out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8);
+                 JsonWriter writer = Json.createWriter(out)) {
+                writer.writeObject(builder.build());
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            Logger.getLogger(MetadataResponseCache.class.getName()).log(Level.WARNING, 
+                    "error writing {0} {1}", new Object[]{file, ex.getMessage()});
+        }
+    }
+
+    private Path file(String url, String extension) {
+        return dir.resolve(SchemaDocumentCache.sha256(url.getBytes(StandardCharsets.UTF_8)) + extension);
+    }
+    
+    static List<BeaconValidationMessage> readErrors(JsonArray array) {
+        final List<BeaconValidationMessage> errors = new ArrayList();
+        if (array != null) {
+            for (JsonValue value : array) {
+                errors.add(readError(value.asJsonObject()));
+            }
+        }
+        return errors;
+    }
+
+    static JsonArrayBuilder writeErrors(List<BeaconValidationMessage> errors) {
+        final JsonArrayBuilder builder = Json.createArrayBuilder();
+        for (BeaconValidationMessage error : errors) {
+            builder.add(writeError(error));
+        }
+        return builder;
+    }
+
+    static BeaconValidationMessage readError(JsonObject error) {
+        final JsonValue code = error.get("code");
+        return new BeaconValidationMessage(
+                BeaconValidationErrorType.valueOf(error.getString("type")),
+                code instanceof JsonNumber number ? number.intValue() : null,
+                getString(error, "location"),
+                getString(error, "path"),
+                getString(error, "message"));
+    }
+
+    static JsonObjectBuilder writeError(BeaconValidationMessage error) {
+        final JsonObjectBuilder b = Json.createObjectBuilder();
+        b.add("type", error.type.name());
+        if (error.code != null) {
+            b.add("code", error.code);
+        }
+        if (error.location != null) {
+            b.add("location", error.location);
+        }
+        if (error.path != null) {
+            b.add("path", error.path);
+        }
+        if (error.message != null) {
+            b.add("message", error.message);
+        }
+        return b;
+    }
+
+    private static String getString(JsonObject object, String name) {
+        final JsonValue value = object.get(name);
+        return value instanceof JsonString str ? str.getString() : null;
+    }
+
+    /**
+     * Cached metadata response.
+     * 
+     * @param etag response ETag header
+     * @param last_modified response Last-Modified header
+     * @param schema the schema used for the validation (location and content hash)
+     * @param body response body as received
+     * @param errors validation errors
+     */
+    public record Entry(String etag, String last_modified, String schema, 
+            byte[] body, List<BeaconValidationMessage> errors) {}
+}
@@ -0,0 +1,423 @@
+/**
+ * *****************************************************************************
+ * Copyright (C) 2024 ELIXIR ES, Spanish National Bioinformatics Institute (INB)
+ * and Barcelona Supercomputing Center (BSC)
+ *
+ * Modifications to the initial code base are copyright of their respective
+ * authors, or their employers as appropriate.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *****************************************************************************
+ */
+
+package es.bsc.inb.ga4gh.beacon.validator;
+
+import jakarta.json.Json;
+import jakarta.json.JsonException;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.CacheRequest;
+import java.net.CacheResponse;
+import java.net.HttpURLConnection;
+import java.net.ResponseCache;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persistent content-addressed cache for the JSON Schema documents.
+ * 
+ * The cache is installed as the default java.net.ResponseCache, so all the
+ * schema documents (including remote $ref ones) that are loaded while 
+ * compiling schemas are stored on disk.
+ * Cached documents are revalidated (ETag / Last-Modified) once they are older
+ * than the configured max age. In offline mode documents are served from 
+ * the cache only.
+ * Documents are fetched with the default request timeout 
+ * (ValidatorBeaconRequest.getRequestTimeout()). Documents that can't be 
+ * loaded are returned as error responses, so they are not fetched again 
+ * by the URLConnection.
+ * 
+ * Layout:
+ *   objects/{sha-256 of the document} - documents' content
+ *   refs/{sha-256 of the URL}.properties - url, document hash and validators
+ * 
+ * @author Dmitry Repchevsky
+ */
+
+public class SchemaDocumentCache extends ResponseCache {
+    
+    public final static Path DEFAULT_CACHE_DIR = 
+            Paths.get(System.getProperty("user.home"), ".cache", "neat-beacon-v2-validator", "schemas");
+    public final static Duration DEFAULT_MAX_AGE = Duration.ofDays(1);
+
+    private final static String URL = "url";
+    private final static String HASH = "hash";
+    private final static String ETAG = "etag";
+    private final static String LAST_MODIFIED = "last-modified";
+    private final static String CONTENT_TYPE = "content-type";
+    private final static String FETCHED = "fetched";
+    
+    private final Path objects;
+    private final Path refs;
+    private final long max_age;
+    private final boolean offline;
+    
+    private final HttpClient http_client;
+
+    /**
+     * @param dir the cache directory
+     * @param max_age time during which cached documents are used without revalidation
+     * @param offline whether to serve the documents only from the cache
+     * 
+     * @throws IOException 
+     */
+    public SchemaDocumentCache(Path dir, Duration max_age, boolean offline) throws IOException {
+        this.objects = Files.createDirectories(dir.resolve("objects"));
+        this.refs = Files.createDirectories(dir.resolve("refs"));
+        this.max_age = max_age == null ? 0 : max_age.toMillis();
+        this.offline = offline;
+        
+        http_client = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+    }
+
+    /**
+     * Installs the schema documents cache as a default ResponseCache.
+     * 
+     * @param dir the cache directory (null for the default one)
+     * @param offline whether to serve the documents only from the cache
+     * 
+     * @return the installed cache
+     * 
+     * @throws IOException 
+     */
+    public static SchemaDocumentCache install(Path dir, boolean offline) throws IOException {
+        final SchemaDocumentCache cache = new SchemaDocumentCache(
+                dir == null ? DEFAULT_CACHE_DIR : dir, DEFAULT_MAX_AGE, offline);
+        ResponseCache.setDefault(cache);
+        return cache;
+    }
+
+    @Override
+    public CacheResponse get(URI uri, String method, Map<String, List<String>> headers) 
+            throws IOException {
+        
+        final String scheme = uri.getScheme();
+        if (!"GET".equals(method) || 
+            !("http".equalsIgnoreCase(scheme) || "https".equalsIgnoreCase(scheme))) {
+            return null;
+        }
+
+        final String url = uri.toString();
+        final Path ref = refs.resolve(sha256(url.getBytes(StandardCharsets.UTF_8)) + ".properties");
+        final Properties cached = read(ref);
+        final byte[] content = cached == null ? null : read(cached);
+
+        if (offline) {
+            if (content == null) {
+                // HttpURLConnection ignores exceptions thrown here and connects
+                return new ErrorCacheResponse(HttpURLConnection.HTTP_GATEWAY_TIMEOUT, 
+                        String.format("offline mode: %s is not cached", url));
+            }
+            return new SchemaCacheResponse(cached, content);
+        }
+        
+        if (content != null) {
+            final long fetched = Long.parseLong(cached.getProperty(FETCHED, "0"));
+            if (System.currentTimeMillis() - fetched < max_age) {
+                return new SchemaCacheResponse(cached, content);
+            }
+        }
+
+        final HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .header("User-Agent", "BN/2.0.0")
+                .GET();
+        final Duration timeout = ValidatorBeaconRequest.getRequestTimeout();
+        if (timeout != null) {
+            builder.timeout(timeout);
+        }
+        if (content != null) {
+            final String etag = cached.getProperty(ETAG);
+            if (etag != null) {
+                builder.header("If-None-Match", etag);
+            }
+            final String last_modified = cached.getProperty(LAST_MODIFIED);
+            if (last_modified != null) {
+                builder.header("If-Modified-Since", last_modified);
+            }
+        }
+
+        String error;
+        try {
+            final HttpResponse<byte[]> response = http_client.send(builder.build(), 
+                    HttpResponse.BodyHandlers.ofByteArray());
+            
+            if (response.statusCode() == HttpURLConnection.HTTP_NOT_MODIFIED && content != null) {
+                cached.setProperty(FETCHED, Long.toString(System.currentTimeMillis()));
+                write(ref, cached);
+                return new SchemaCacheResponse(cached, content);
+            }
+            if (response.statusCode() == HttpURLConnection.HTTP_OK) {
+                final byte[] body = response.body();
+                final Properties entry = new Properties();
+                entry.setProperty(URL, url);
+                entry.setProperty(HASH, write(body));
+                entry.setProperty(FETCHED, Long.toString(System.currentTimeMillis()));
+                response.headers().firstValue("ETag").ifPresent(v -> entry.setProperty(ETAG, v));
+                response.headers().firstValue("Last-Modified").ifPresent(v -> entry.setProperty(LAST_MODIFIED, v));
+                response.headers().firstValue("Content-Type").ifPresent(v -> entry.setProperty(CONTENT_TYPE, v));
+                write(ref, entry);
+                return new SchemaCacheResponse(entry, body);
+            }
+            error = String.format("error loading %s (%d)", url, response.statusCode());
+        } catch (IOException ex) {
+            Logger.getLogger(SchemaDocumentCache.class.getName()).log(Level.WARNING, 
+                    "error revalidating {0} {1}", new Object[]{url, ex.getMessage()});
+            error = String.format("error loading %s %s", url, ex.getMessage());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            error = String.format("error loading %s (interrupted)", url);
+        }
+
+        // serve stale document if any, otherwise return the error, 
+        // so the connection doesn't fetch the document again
+        return content != null ? new SchemaCacheResponse(cached, content) 
+                : new ErrorCacheResponse(HttpURLConnection.HTTP_BAD_GATEWAY, error);
+    }
+
+    @Override
+    public CacheRequest put(URI uri, URLConnection conn) throws IOException {
+        return null; // documents are stored while revalidating
+    }
+    
+    private Properties read(Path ref) {
+        if (Files.exists(ref)) {
+            try (Reader reader = Files.newBufferedReader(ref, StandardCharsets.UTF_8)) {
+                final Properties properties = new Properties();
+                properties.load(reader);
+                return properties;
+            } catch (IOException ex) {
+                Logger.getLogger(SchemaDocumentCache.class.getName()).log(Level.WARNING, 
+                        "error reading {0} {1}", new Object[]{ref, ex.getMessage()});
+            }
+        }
+        return null;
+    }
+    
+    private byte[] read(Properties ref) {
+        final String hash = ref.getProperty(HASH);
+        if (hash != null) {
+            final Path object = objects.resolve(hash);
+            try {
+                if (Files.exists(object)) {
+                    return Files.readAllBytes(object);
+                }
+            } catch (IOException ex) {
+                Logger.getLogger(SchemaDocumentCache.class.getName()).log(Level.WARNING, 
+                        "error reading {0} {1}", new Object[]{object, ex.getMessage()});
+            }
+        }
+        return null;
+    }
+    
+    private void write(Path ref, Properties properties) throws IOException {
+        final Path tmp = Files.createTempFile(refs, null, null);
+        try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            properties.store(writer, null);
+        }
+        Files.move(tmp, ref, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    private String write(byte[] content) throws IOException {
+        final String hash = sha256(content);
+        final Path object = objects.resolve(hash);
+        if (!Files.exists(object)) {
+            final Path tmp = Files.createTempFile(objects, null, null);
+            Files.write(tmp, content);
+            Files.move(tmp, object, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        return hash;
+    }
+
+    /**
+     * Calculates the hash of the schema document and all the documents 
+     * it references, so the hash changes when any of the documents changes.
+     * Documents are loaded via URLConnection, so they are served by the 
+     * SchemaDocumentCache when it is installed.
+     * 
+     * @param location the schema document location
+     * @param timeout documents loading timeout (null for no timeout)
+     * 
+     * @return SHA-256 of the documents' locations and hashes
+     * 
+     * @throws IOException 
+     */
+    static String digest(URL location, Duration timeout) throws IOException {
+        final Map<String, String> documents = new TreeMap();
+        digest(location, timeout, documents);
+        return sha256(documents.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void digest(URL location, Duration timeout, Map<String, String> documents) 
+            throws IOException {
+        final String url = location.toString();
+        final int idx = url.indexOf('#');
+        final URL document = idx < 0 ? location : new URL(url.substring(0, idx));
+        if (documents.containsKey(document.toString())) {
+            return;
+        }
+        
+        final URLConnection connection = document.openConnection();
+        if (timeout != null) {
+            final int millis = (int)Math.max(1, Math.min(Integer.MAX_VALUE, timeout.toMillis()));
+            connection.setConnectTimeout(millis);
+            connection.setReadTimeout(millis);
+        }
+        final byte[] content;
+        try (InputStream in = connection.getInputStream()) {
+            content = in.readAllBytes();
+        }
+        documents.put(document.toString(), sha256(content));
+        
+        final List<String> refs = new ArrayList();
+        try (JsonReader reader = Json.createReader(new ByteArrayInputStream(content))) {
+            references(reader.readValue(), refs);
+        } catch (JsonException ex) {
+            throw new IOException(ex.getMessage(), ex);
+        }
+        for (String ref : refs) {
+            // URL (unlike URI) resolves references within 'jar:' documents
+            digest(new URL(document, ref), timeout, documents);
+        }
+    }
+    
+    /**
+     * Collects all '$ref' values of the JSON document.
+     */
+    private static void references(JsonValue value, List<String> refs) {
+        switch(value.getValueType()) {
+            case OBJECT -> {
+                for (Map.Entry<String, JsonValue> entry : value.asJsonObject().entrySet()) {
+                    if ("$ref".equals(entry.getKey()) && entry.getValue() instanceof JsonString ref) {
+                        refs.add(ref.getString());
+                    } else {
+                        references(entry.getValue(), refs);
+                    }
+                }
+            }
+            case ARRAY -> {
+                for (JsonValue item : value.asJsonArray()) {
+                    references(item, refs);
+                }
+            }
+        }
+    }
+
+    static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static class SchemaCacheResponse extends CacheResponse {
+        
+        private final Map<String, List<String>> headers;
+        private final byte[] content;
+
+        SchemaCacheResponse(Properties properties, byte[] content) {
+            headers = new HashMap();
+            headers.put(null, List.of("HTTP/1.1 200 OK")); // status line
+            headers.put("Content-Type", List.of(properties.getProperty(CONTENT_TYPE, "application/json")));
+            headers.put("Content-Length", List.of(Integer.toString(content.length)));
+
+            this.content = content;
+        }
+        
+        @Override
+        public Map<String, List<String>> getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(content);
+        }
+    }
+
+    /**
+     * Error response for the documents that can't be loaded 
+     * (or 'only-if-cached' ones not found in the cache in offline mode).
+     * Reading the body fails with the error message.
+     */
+    private static class ErrorCacheResponse extends CacheResponse {
+        
+        private final int status;
+        private final String message;
+        
+        ErrorCacheResponse(int status, String message) {
+            this.status = status;
+            this.message = message;
+        }
+
+        @Override
+        public Map<String, List<String>> getHeaders() {
+            final Map<String, List<String>> headers = new HashMap();
+            headers.put(null, List.of(String.format("HTTP/1.1 %d Error", status)));
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new InputStream() {
+                @Override
+                public int read() throws IOException {
+                    throw new IOException(message);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * *****************************************************************************
+ * Copyright (C) 2024 ELIXIR ES, Spanish National Bioinformatics Institute (INB)
+ * and Barcelona Supercomputing Center (BSC)
+ *
+ * Modifications to the initial code base are copyright of their respective
+ * authors, or their employers as appropriate.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *****************************************************************************
+ */
+
+package es.bsc.inb.ga4gh.beacon.validator;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The time budget for the whole validation run.
+ * 
+ * Once the budget is exhausted no more requests are sent and the endpoints
+ * that were not validated are reported as skipped. Requests' timeouts are 
+ * limited to the remaining time, so outstanding requests are cancelled
+ * when the deadline is reached.
+ * 
+ * @author Dmitry Repchevsky
+ */
+
+public class ValidationDeadline {
+    
+    private final static ValidationDeadline UNLIMITED = new ValidationDeadline(null);
+    
+    private final long deadline;
+    private final Queue<String> skipped;
+
+    /**
+     * @param budget the time budget for the validation (null for no limit)
+     */
+    public ValidationDeadline(Duration budget) {
+        deadline = budget == null ? 0 : System.nanoTime() + budget.toNanos();
+        skipped = new ConcurrentLinkedQueue();
+    }
+    
+    /**
+     * @return the deadline without any time limit
+     */
+    public static ValidationDeadline unlimited() {
+        return UNLIMITED;
+    }
+
+    public boolean isExpired() {
+        return deadline != 0 && deadline - System.nanoTime() <= 0;
+    }
+
+    /**
+     * @return remaining time or null if there is no time limit
+     */
+    public Duration remaining() {
+        return deadline == 0 ? null : Duration.ofNanos(Math.max(0, deadline - System.nanoTime()));
+    }
+
+    /**
+     * Calculates the timeout for the next request as the minimum of the 
+     * default request timeout and the remaining time.
+     * 
+     * @return the request timeout or null for no timeout
+     */
+    public Duration timeout() {
+        final Duration timeout = ValidatorBeaconRequest.getRequestTimeout();
+        final Duration remaining = remaining();
+        if (remaining == null) {
+            return timeout;
+        }
+        if (remaining.isZero()) {
+            return Duration.ofMillis(1);
+        }
+        return timeout == null || timeout.compareTo(remaining) > 0 ? remaining : timeout;
+    }
+
+    /**
+     * Reports the endpoint as skipped due to the exhausted time budget.
+     * 
+     * @param endpoint the skipped endpoint
+     * @param reporter validation process observer
+     */
+    public void skip(String endpoint, ValidationObserver reporter) {
+        skipped.add(endpoint);
+        reporter.error(new BeaconValidationMessage(
+                BeaconValidationErrorType.TIMEOUT_ERROR,
+                null, endpoint, null,
+                "skipped: validation time budget exhausted"));
+    }
+    
+    /**
+     * @return the list of skipped endpoints
+     */
+    public List<String> getSkipped() {
+        return new ArrayList(skipped);
+    }
+}
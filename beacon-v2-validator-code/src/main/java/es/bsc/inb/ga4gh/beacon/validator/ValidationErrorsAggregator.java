@@ -0,0 +1,102 @@
+/**
+ * *****************************************************************************
+ * Copyright (C) 2024 ELIXIR ES, Spanish National Bioinformatics Institute (INB)
+ * and Barcelona Supercomputing Center (BSC)
+ *
+ * Modifications to the initial code base are copyright of their respective
+ * authors, or their employers as appropriate.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *****************************************************************************
+ */
+
+package es.bsc.inb.ga4gh.beacon.validator;
+
+import es.elixir.bsc.json.schema.ValidationError;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Groups similar JSON Schema validation errors.
+ * 
+ * Errors are similar when they have the same code, schema location and 
+ * path (ignoring array indexes). Only first errors of the group are kept
+ * and reported, followed by the summary message with the total number
+ * of errors in the group.
+ * 
+ * @author Dmitry Repchevsky
+ */
+
+class ValidationErrorsAggregator {
+    
+    private final static Pattern INDEX = Pattern.compile("/[0-9]+(?=/|$)");
+    
+    private final int examples;
+    private final Map<Key, Group> groups;
+    
+    /**
+     * @param examples the number of errors reported for every group
+     */
+    ValidationErrorsAggregator(int examples) {
+        this.examples = Math.max(0, examples);
+        
+        groups = new LinkedHashMap();
+    }
+    
+    void add(List<ValidationError> errors) {
+        for (ValidationError error : errors) {
+            add(new BeaconValidationMessage(error));
+        }
+    }
+
+    void add(BeaconValidationMessage error) {
+        final String path = error.path == null ? null : INDEX.matcher(error.path).replaceAll("/*");
+        final Group group = groups.computeIfAbsent(
+                new Key(error.code, error.location, path), k -> new Group());
+        if (group.errors.size() < examples) {
+            group.errors.add(error);
+        }
+        group.count++;
+    }
+    
+    void report(ValidationObserver reporter) {
+        for (Map.Entry<Key, Group> entry : groups.entrySet()) {
+            final Group group = entry.getValue();
+            for (BeaconValidationMessage error : group.errors) {
+                reporter.error(error);
+            }
+            if (group.count > group.errors.size()) {
+                final Key key = entry.getKey();
+                reporter.error(new BeaconValidationMessage(
+                        BeaconValidationErrorType.JSON_SCHEMA_ERROR,
+                        key.code, key.location, key.path,
+                        String.format("%d similar errors (%d not reported)", 
+                                group.count, group.count - group.errors.size())));
+            }
+        }
+        groups.clear();
+    }
+
+    private record Key(Integer code, String location, String path) {}
+    
+    private static class Group {
+        private long count;
+        private final List<BeaconValidationMessage> errors = new ArrayList();
+    }
+}
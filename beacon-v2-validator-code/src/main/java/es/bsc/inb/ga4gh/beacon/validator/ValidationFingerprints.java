@@ -0,0 +1,208 @@
+/**
+ * *****************************************************************************
+ * Copyright (C) 2024 ELIXIR ES, Spanish National Bioinformatics Institute (INB)
+ * and Barcelona Supercomputing Center (BSC)
+ *
+ * Modifications to the initial code base are copyright of their respective
+ * authors, or their employers as appropriate.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *****************************************************************************
+ */
+
+package es.bsc.inb.ga4gh.beacon.validator;
+
+import jakarta.json.Json;
+import jakarta.json.JsonArray;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonObjectBuilder;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonValue;
+import jakarta.json.JsonWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persistent store of Beacon endpoint sets fingerprints.
+ * 
+ * For every validated endpoint set the store keeps the fingerprint of its 
+ * inputs (endpoint set definition, metadata documents, entity schemas and 
+ * the root endpoint response) together with all the validation messages 
+ * (errors, messages and metrics). When the fingerprint is unchanged, previous
+ * results are reused until they get older than the maximum age.
+ * 
+ * @author Dmitry Repchevsky
+ */
+
+public class ValidationFingerprints {
+    
+    public final static Duration DEFAULT_MAX_AGE = Duration.ofDays(1);
+    
+    private static volatile ValidationFingerprints fingerprints;
+
+    private final Path dir;
+    private final Duration max_age;
+    
+    private final Map<String, Map<String, EndpointSet>> beacons;
+    
+    public ValidationFingerprints(Path dir) throws IOException {
+        this(dir, DEFAULT_MAX_AGE);
+    }
+
+    /**
+     * @param dir the directory to keep fingerprints
+     * @param max_age the maximum age of reused results (null for no limit)
+     * 
+     * @throws IOException 
+     */
+    public ValidationFingerprints(Path dir, Duration max_age) throws IOException {
+        this.dir = Files.createDirectories(dir);
+        this.max_age = max_age;
+        
+        beacons = new HashMap();
+    }
+    
+    /**
+     * @return the fingerprints store used by endpoint validators or null if not set
+     */
+    public static ValidationFingerprints getDefault() {
+        return fingerprints;
+    }
+
+    /**
+     * Sets the fingerprints store used by endpoint validators.
+     * 
+     * @param fingerprints the fingerprints store or null to disable 
+     *                     incremental validation
+     */
+    public static void setDefault(ValidationFingerprints fingerprints) {
+        ValidationFingerprints.fingerprints = fingerprints;
+    }
+    
+    /**
+     * Gets previous results of the endpoint set validation.
+     * 
+     * @param beacon Beacon's API endpoint
+     * @param endpoint_set the endpoint set name
+     * @param fingerprint current fingerprint of the endpoint set
+     * 
+     * @return previous validation messages or null if the endpoint set has to be validated
+     */
+    public synchronized ValidationMessagesBuffer get(String beacon, 
+            String endpoint_set, String fingerprint) {
+        final EndpointSet previous = load(beacon).get(endpoint_set);
+        if (previous == null || !previous.fingerprint().equals(fingerprint)) {
+            return null;
+        }
+        if (max_age != null && 
+            System.currentTimeMillis() - previous.checked() > max_age.toMillis()) {
+            return null;
+        }
+        return previous.messages();
+    }
+    
+    /**
+     * Stores results of the endpoint set validation.
+     * 
+     * @param beacon Beacon's API endpoint
+     * @param endpoint_set the endpoint set name
+     * @param fingerprint the fingerprint of the endpoint set
+     * @param messages validation messages
+     */
+    public synchronized void put(String beacon, String endpoint_set, 
+            String fingerprint, ValidationMessagesBuffer messages) {
+        final Map<String, EndpointSet> endpoint_sets = load(beacon);
+        endpoint_sets.put(endpoint_set, new EndpointSet(fingerprint, 
+                System.currentTimeMillis(), messages));
+        save(beacon, endpoint_sets);
+    }
+    
+    private Map<String, EndpointSet> load(String beacon) {
+        Map<String, EndpointSet> endpoint_sets = beacons.get(beacon);
+        if (endpoint_sets == null) {
+            endpoint_sets = new HashMap();
+            beacons.put(beacon, endpoint_sets);
+            
+            final Path file = file(beacon);
+            if (Files.exists(file)) {
+                try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+                     JsonReader reader = Json.createReader(in)) {
+                    final JsonObject object = reader.readObject();
+                    if (beacon.equals(object.getString("beacon", null))) {
+                        final JsonObject sets = object.getJsonObject("endpoint_sets");
+                        for (Map.Entry<String, JsonValue> entry : sets.entrySet()) {
+                            final JsonObject set = entry.getValue().asJsonObject();
+                            final JsonArray messages = set.getJsonArray("messages");
+                            if (messages != null) { // older files keep only errors
+                                endpoint_sets.put(entry.getKey(), new EndpointSet(
+                                        set.getString("fingerprint"),
+                                        set.getJsonNumber("checked").longValue(),
+                                        ValidationMessagesBuffer.read(messages)));
+                            }
+                        }
+                    }
+                } catch (Exception ex) {
+                    Logger.getLogger(ValidationFingerprints.class.getName()).log(Level.WARNING, 
+                            "error reading {0} {1}", new Object[]{file, ex.getMessage()});
+                }
+            }
+        }
+        return endpoint_sets;
+    }
+
+    private void save(String beacon, Map<String, EndpointSet> endpoint_sets) {
+        final JsonObjectBuilder sets = Json.createObjectBuilder();
+        for (Map.Entry<String, EndpointSet> entry : endpoint_sets.entrySet()) {
+            final EndpointSet set = entry.getValue();
+            sets.add(entry.getKey(), Json.createObjectBuilder()
+                    .add("fingerprint", set.fingerprint())
+                    .add("checked", set.checked())
+                    .add("messages", set.messages().write()));
+        }
+        
+        final Path file = file(beacon);
+        try {
+            final Path tmp = Files.createTempFile(dir, null, null);
+            try (Writer out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8);
+                 JsonWriter writer = Json.createWriter(out)) {
+                writer.writeObject(Json.createObjectBuilder()
+                        .add("beacon", beacon)
+                        .add("endpoint_sets", sets).build());
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            Logger.getLogger(ValidationFingerprints.class.getName()).log(Level.WARNING, 
+                    "error writing {0} {1}", new Object[]{file, ex.getMessage()});
+        }
+    }
+
+    private Path file(String beacon) {
+        return dir.resolve(SchemaDocumentCache.sha256(beacon.getBytes(StandardCharsets.UTF_8)) + ".json");
+    }
+
+    private record EndpointSet(String fingerprint, long checked, 
+            ValidationMessagesBuffer messages) {}
+}
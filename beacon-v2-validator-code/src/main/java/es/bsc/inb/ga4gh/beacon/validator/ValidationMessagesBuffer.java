@@ -0,0 +1,166 @@
+/**
+ * *****************************************************************************
+ * Copyright (C) 2024 ELIXIR ES, Spanish National Bioinformatics Institute (INB)
+ * and Barcelona Supercomputing Center (BSC)
+ *
+ * Modifications to the initial code base are copyright of their respective
+ * authors, or their employers as appropriate.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *****************************************************************************
+ */
+
+package es.bsc.inb.ga4gh.beacon.validator;
+
+import jakarta.json.Json;
+import jakarta.json.JsonArray;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonObjectBuilder;
+import jakarta.json.JsonValue;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ValidationObserver implementation that keeps both messages and errors in
+ * the order they were reported, so they can be later replayed to another 
+ * observer. Used to keep the report order stable when the validation is 
+ * done concurrently.
+ * 
+ * @author Dmitry Repchevsky
+ */
+
+public class ValidationMessagesBuffer implements ValidationObserver {
+    
+    private final List<Object> messages = new ArrayList();
+
+    @Override
+    public synchronized void error(BeaconValidationMessage error) {
+        messages.add(error);
+    }
+    
+    @Override
+    public synchronized void message(String message) {
+        messages.add(message);
+    }
+
+    @Override
+    public synchronized void endpoint(String endpoint) {
+        messages.add(new Endpoint(endpoint));
+    }
+
+    @Override
+    public synchronized void metric(ValidationMetric metric) {
+        messages.add(metric);
+    }
+
+    /**
+     * @return the list of buffered errors
+     */
+    public synchronized List<BeaconValidationMessage> getErrors() {
+        final List<BeaconValidationMessage> errors = new ArrayList();
+        for (Object message : messages) {
+            if (message instanceof BeaconValidationMessage error) {
+                errors.add(error);
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * Sends all buffered messages to the observer.
+     * 
+     * @param reporter the observer to send messages to
+     */
+    public synchronized void replay(ValidationObserver reporter) {
+        for (Object message : messages) {
+            if (message instanceof BeaconValidationMessage error) {
+                reporter.error(error);
+            } else if (message instanceof Endpoint endpoint) {
+                reporter.endpoint(endpoint.endpoint);
+            } else if (message instanceof ValidationMetric metric) {
+                reporter.metric(metric);
+            } else {
+                reporter.message((String)message);
+            }
+        }
+    }
+
+    /**
+     * Writes all buffered messages as JSON, so they can be stored and 
+     * replayed later (see read()).
+     * 
+     * @return JSON array of the buffered messages
+     */
+    synchronized JsonArrayBuilder write() {
+        final JsonArrayBuilder builder = Json.createArrayBuilder();
+        for (Object message : messages) {
+            if (message instanceof BeaconValidationMessage error) {
+                builder.add(Json.createObjectBuilder()
+                        .add("error", MetadataResponseCache.writeError(error)));
+            } else if (message instanceof Endpoint endpoint) {
+                builder.add(Json.createObjectBuilder()
+                        .add("endpoint", endpoint.endpoint));
+            } else if (message instanceof ValidationMetric metric) {
+                final JsonObjectBuilder b = Json.createObjectBuilder()
+                        .add("phase", metric.phase().name())
+                        .add("nanos", metric.nanos())
+                        .add("bytes", metric.bytes())
+                        .add("records", metric.records())
+                        .add("retries", metric.retries());
+                if (metric.endpoint() != null) {
+                    b.add("endpoint", metric.endpoint());
+                }
+                builder.add(Json.createObjectBuilder().add("metric", b));
+            } else {
+                builder.add(Json.createObjectBuilder()
+                        .add("message", (String)message));
+            }
+        }
+        return builder;
+    }
+    
+    /**
+     * Reads messages written by write().
+     * 
+     * @param array JSON array of the messages
+     * 
+     * @return the buffer with the messages
+     */
+    static ValidationMessagesBuffer read(JsonArray array) {
+        final ValidationMessagesBuffer buffer = new ValidationMessagesBuffer();
+        for (JsonValue value : array) {
+            final JsonObject object = value.asJsonObject();
+            if (object.containsKey("error")) {
+                buffer.error(MetadataResponseCache.readError(object.getJsonObject("error")));
+            } else if (object.containsKey("endpoint")) {
+                buffer.endpoint(object.getString("endpoint"));
+            } else if (object.containsKey("metric")) {
+                final JsonObject metric = object.getJsonObject("metric");
+                buffer.metric(new ValidationMetric(metric.getString("endpoint", null), 
+                        ValidationPhase.valueOf(metric.getString("phase")),
+                        metric.getJsonNumber("nanos").longValue(),
+                        metric.getJsonNumber("bytes").longValue(),
+                        metric.getInt("records"), metric.getInt("retries")));
+            } else {
+                buffer.message(object.getString("message"));
+            }
+        }
+        return buffer;
+    }
+
+    private record Endpoint(String endpoint) {}
+}
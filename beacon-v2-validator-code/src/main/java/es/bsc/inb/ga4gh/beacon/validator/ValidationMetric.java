@@ -0,0 +1,53 @@
+/**
+ * *****************************************************************************
+ * Copyright (C) 2024 ELIXIR ES, Spanish National Bioinformatics Institute (INB)
+ * and Barcelona Supercomputing Center (BSC)
+ *
+ * Modifications to the initial code base are copyright of their respective
+ * authors, or their employers as appropriate.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *****************************************************************************
+ */
+
+
+package es.bsc.inb.ga4gh.beacon.validator;
+
+/**
+ * The cost of the validation phase for the endpoint.
+ * 
+ * @param endpoint the endpoint (or the schema location for the COMPILE phase)
+ * @param phase the validation phase
+ * @param nanos the phase duration in nanoseconds
+ * @param bytes the number of downloaded bytes (DOWNLOAD phase)
+ * @param records the number of validated records (VALIDATE phase)
+ * @param retries the number of retried requests (RETRY phase)
+ * 
+ * @author Dmitry Repchevsky
+ */
+
+public record ValidationMetric(String endpoint, ValidationPhase phase, 
+        long nanos, long bytes, int records, int retries) {
+    
+    public ValidationMetric(String endpoint, ValidationPhase phase, long nanos) {
+        this(endpoint, phase, nanos, 0, 0);
+    }
+
+    public ValidationMetric(String endpoint, ValidationPhase phase, 
+            long nanos, long bytes, int records) {
+        this(endpoint, phase, nanos, bytes, records, 0);
+    }
+}
@@ -0,0 +1,197 @@
+/**
+ * *****************************************************************************
+ * Copyright (C) 2024 ELIXIR ES, Spanish National Bioinformatics Institute (INB)
+ * and Barcelona Supercomputing Center (BSC)
+ *
+ * Modifications to the initial code base are copyright of their respective
+ * authors, or their employers as appropriate.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *****************************************************************************
+ */
+
+
+package es.bsc.inb.ga4gh.beacon.validator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ValidationObserver decorator that aggregates the validation metrics 
+ * per endpoint and provides the summary with percentiles of every phase.
+ * All the calls are forwarded to the decorated observer.
+ * 
+ * @author Dmitry Repchevsky
+ */
+
+public class ValidationMetricsCollector implements ValidationObserver {
+    
+    private final ValidationObserver observer;
+    private final Map<String, EndpointMetrics> endpoints;
+
+    public ValidationMetricsCollector(ValidationObserver observer) {
+        this.observer = observer;
+        
+        endpoints = new ConcurrentHashMap();
+    }
+
+    @Override
+    public void error(BeaconValidationMessage error) {
+        observer.error(error);
+    }
+
+    @Override
+    public void message(String message) {
+        observer.message(message);
+    }
+
+    @Override
+    public void endpoint(String endpoint) {
+        observer.endpoint(endpoint);
+    }
+
+    @Override
+    public void metric(ValidationMetric metric) {
+        if (metric.endpoint() != null) {
+            endpoints.computeIfAbsent(metric.endpoint(), EndpointMetrics::new).add(metric);
+        }
+        observer.metric(metric);
+    }
+    
+    /**
+     * @return aggregated metrics of every endpoint sorted by the endpoint
+     */
+    public List<EndpointMetrics> getEndpoints() {
+        final List<EndpointMetrics> list = new ArrayList(endpoints.values());
+        list.sort(Comparator.comparing(m -> m.endpoint));
+        return list;
+    }
+
+    /**
+     * Calculates percentiles of the phase durations over all endpoints 
+     * the phase was measured for.
+     * 
+     * @return percentiles of every measured phase
+     */
+    public Map<ValidationPhase, Percentiles> getSummary() {
+        final Map<ValidationPhase, Percentiles> summary = new EnumMap(ValidationPhase.class);
+        for (ValidationPhase phase : ValidationPhase.values()) {
+            final long[] values = endpoints.values().stream()
+                    .filter(m -> m.has(phase))
+                    .mapToLong(m -> m.getNanos(phase))
+                    .sorted().toArray();
+            if (values.length > 0) {
+                summary.put(phase, new Percentiles(values.length, 
+                        Arrays.stream(values).sum(), percentile(values, 50), 
+                        percentile(values, 90), percentile(values, 99), 
+                        values[values.length - 1]));
+            }
+        }
+        return summary;
+    }
+    
+    /**
+     * @return the total number of downloaded bytes
+     */
+    public long getBytes() {
+        return endpoints.values().stream().mapToLong(EndpointMetrics::getBytes).sum();
+    }
+
+    /**
+     * @return the total number of validated records
+     */
+    public long getRecords() {
+        return endpoints.values().stream().mapToLong(EndpointMetrics::getRecords).sum();
+    }
+
+    /**
+     * @return the total number of retried requests
+     */
+    public long getRetries() {
+        return endpoints.values().stream().mapToLong(EndpointMetrics::getRetries).sum();
+    }
+
+    /**
+     * Nearest-rank percentile of sorted values.
+     */
+    private static long percentile(long[] values, int p) {
+        final int rank = (int)Math.ceil(p / 100.0 * values.length);
+        return values[Math.max(0, rank - 1)];
+    }
+
+    /**
+     * Percentiles of the phase durations in nanoseconds.
+     * 
+     * @param count the number of endpoints the phase was measured for
+     * @param total the total duration
+     */
+    public record Percentiles(int count, long total, long p50, long p90, long p99, long max) {}
+
+    /**
+     * Metrics of the endpoint summed over all its requests.
+     */
+    public static class EndpointMetrics {
+        
+        public final String endpoint;
+        
+        private final long[] nanos;
+        private final boolean[] measured;
+        private long bytes;
+        private long records;
+        private long retries;
+        
+        EndpointMetrics(String endpoint) {
+            this.endpoint = endpoint;
+            
+            nanos = new long[ValidationPhase.values().length];
+            measured = new boolean[nanos.length];
+        }
+        
+        synchronized void add(ValidationMetric metric) {
+            final int phase = metric.phase().ordinal();
+            nanos[phase] += metric.nanos();
+            measured[phase] = true;
+            bytes += metric.bytes();
+            records += metric.records();
+            retries += metric.retries();
+        }
+
+        public synchronized boolean has(ValidationPhase phase) {
+            return measured[phase.ordinal()];
+        }
+
+        public synchronized long getNanos(ValidationPhase phase) {
+            return nanos[phase.ordinal()];
+        }
+
+        public synchronized long getBytes() {
+            return bytes;
+        }
+
+        public synchronized long getRecords() {
+            return records;
+        }
+
+        public synchronized long getRetries() {
+            return retries;
+        }
+    }
+}
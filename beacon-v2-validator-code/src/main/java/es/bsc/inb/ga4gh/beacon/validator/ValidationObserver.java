@@ -34,4 +34,19 @@ public interface ValidationObserver {
     void error(BeaconValidationMessage error);
     
     default void message(String message) {}
+    
+    /**
+     * Notifies that following errors reported from the same thread 
+     * relate to the endpoint.
+     * 
+     * @param endpoint the endpoint being validated
+     */
+    default void endpoint(String endpoint) {}
+    
+    /**
+     * Notifies about the measured cost of the validation phase.
+     * 
+     * @param metric the validation phase metric
+     */
+    default void metric(ValidationMetric metric) {}
 }
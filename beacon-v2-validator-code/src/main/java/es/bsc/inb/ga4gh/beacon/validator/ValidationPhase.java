@@ -0,0 +1,44 @@
+/**
+ * *****************************************************************************
+ * Copyright (C) 2024 ELIXIR ES, Spanish National Bioinformatics Institute (INB)
+ * and Barcelona Supercomputing Center (BSC)
+ *
+ * Modifications to the initial code base are copyright of their respective
+ * authors, or their employers as appropriate.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *****************************************************************************
+ */
+
+
+package es.bsc.inb.ga4gh.beacon.validator;
+
+/**
+ * Measured phases of the endpoint validation.
+ * 
+ * @author Dmitry Repchevsky
+ */
+
+public enum ValidationPhase {
+    QUEUE,    // waiting for the permit of the per host requests limit
+    RETRY,    // failed attempts and backoff delays before the final attempt
+    TTFB,     // sending the final attempt until response headers are received
+    DOWNLOAD, // waiting for the response body
+    PARSE,    // parsing the JSON response
+    BIND,     // binding the JSON to the Beacon model
+    VALIDATE, // validating against the JSON schema
+    COMPILE   // loading and compiling the JSON schema
+}
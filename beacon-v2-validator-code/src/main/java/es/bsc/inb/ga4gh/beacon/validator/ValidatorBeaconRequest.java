@@ -25,26 +25,148 @@
 
 package es.bsc.inb.ga4gh.beacon.validator;
 
+import jakarta.json.Json;
+import jakarta.json.JsonException;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonValue;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpRequest.BodyPublishers;
 import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.net.ssl.SSLSession;
 
 /**
  * @author Dmitry Repchevsky
  */
 public final class ValidatorBeaconRequest {
     
+    public final static long DEFAULT_MAX_BODY_SIZE = 64 * 1024 * 1024;
+    public final static int DEFAULT_MAX_HOST_REQUESTS = 8;
+    public final static int DEFAULT_MAX_RETRIES = 3;
+    public final static Duration DEFAULT_RETRY_DELAY = Duration.ofMillis(500);
+    public final static Duration DEFAULT_MAX_RETRY_DELAY = Duration.ofSeconds(30);
+    public final static Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(60);
+
     private final static HttpClient http_client = 
             HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
                 .followRedirects(HttpClient.Redirect.NORMAL)
                 .connectTimeout(Duration.ofSeconds(30))
                 .build();
 
+    private final static Map<String, HostRequestLimiter> limiters = new ConcurrentHashMap();
+    
+    private final static ScheduledExecutorService timer = 
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                final Thread thread = new Thread(r, "beacon-request-timer");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private static volatile long max_body_size = DEFAULT_MAX_BODY_SIZE;
+    private static volatile int max_host_requests = DEFAULT_MAX_HOST_REQUESTS;
+    private static volatile int max_retries = DEFAULT_MAX_RETRIES;
+    private static volatile long retry_delay = DEFAULT_RETRY_DELAY.toMillis();
+    private static volatile long max_retry_delay = DEFAULT_MAX_RETRY_DELAY.toMillis();
+    private static volatile HttpClient.Version http_version = HttpClient.Version.HTTP_2;
+    private static volatile Duration request_timeout = DEFAULT_REQUEST_TIMEOUT;
+
+    /**
+     * Sets the maximum size of the response body read by readJson() and readBytes() methods.
+     * 
+     * @param size maximum body size in bytes (0 for no limit)
+     */
+    public static void setMaxBodySize(long size) {
+        max_body_size = Math.max(0, size);
+    }
+    
+    public static long getMaxBodySize() {
+        return max_body_size;
+    }
+    
+    /**
+     * Sets the maximum number of in-flight requests to the same host.
+     * Streamed responses count until their bodies are read or closed.
+     * The limit applies to the requests that are sent after the change.
+     * 
+     * @param requests maximum number of requests (0 for no limit)
+     */
+    public static void setMaxHostRequests(int requests) {
+        max_host_requests = Math.max(0, requests);
+        limiters.clear();
+    }
+
+    /**
+     * Sets the number of retries for the failed requests.
+     * Requests are retried on connection errors and 429, 502, 503, 504 statuses.
+     * 
+     * @param retries maximum number of retries (0 to disable retries)
+     */
+    public static void setMaxRetries(int retries) {
+        max_retries = Math.max(0, retries);
+    }
+
+    /**
+     * Sets the exponential backoff parameters.
+     * Actual delay is randomly chosen between 0 and min(max_delay, delay * 2^attempt),
+     * unless the server provides Retry-After header.
+     * 
+     * @param delay the base retry delay
+     * @param max_delay the maximum retry delay
+     */
+    public static void setRetryDelay(Duration delay, Duration max_delay) {
+        retry_delay = delay.toMillis();
+        max_retry_delay = max_delay.toMillis();
+    }
+
+    /**
+     * Sets the default request timeout.
+     * The timeout limits both waiting for the response (including retries)
+     * and reading the response body.
+     * 
+     * @param timeout request timeout (null or zero for no timeout)
+     */
+    public static void setRequestTimeout(Duration timeout) {
+        request_timeout = timeout == null || timeout.isZero() || timeout.isNegative() ? null : timeout;
+    }
+    
+    public static Duration getRequestTimeout() {
+        return request_timeout;
+    }
+
+    /**
+     * Sets the preferred HTTP version (HTTP/2 by default).
+     * 
+     * @param version the HTTP version
+     */
+    public static void setHttpVersion(HttpClient.Version version) {
+        http_version = version;
+    }
     
     /**
      * Method to read beacons' metadata responses.
@@ -57,27 +179,709 @@ public final class ValidatorBeaconRequest {
     public static HttpResponse<String> getHttpResponse(URI beacon_endpoint) 
             throws IOException, InterruptedException {
 
-        HttpRequest.Builder builder = HttpRequest.newBuilder(beacon_endpoint)
-                .header("User-Agent", "BN/2.0.0")
-                .header("Accept", "application/json")
-                .header("Cache-Control", "no-cache, no-store, must-revalidate")
-                .header("Expires", "0")
-                .GET();
-        
-        return http_client.send(builder.build(), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        return send(createGetRequest(beacon_endpoint, request_timeout), 
+                HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Asynchronous version of the getHttpResponse() method.
+     * 
+     * @param beacon_endpoint the endpoint URL
+     * @return the future HTTP Response object
+     */
+    public static CompletableFuture<HttpResponse<String>> getHttpResponseAsync(URI beacon_endpoint) {
+        return sendAsync(createGetRequest(beacon_endpoint, request_timeout), 
+                HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
     }
     
+    /**
+     * Streaming version of the getHttpResponse() method.
+     * The response body should be consumed via readJson() method.
+     * 
+     * @param beacon_endpoint the endpoint URL
+     * @return the future HTTP Response object
+     */
+    public static CompletableFuture<HttpResponse<InputStream>> getHttpStreamAsync(URI beacon_endpoint) {
+        return getHttpStreamAsync(beacon_endpoint, request_timeout);
+    }
+
+    /**
+     * Streaming version of the getHttpResponse() method.
+     * The response body should be consumed via readJson() method.
+     * 
+     * @param beacon_endpoint the endpoint URL
+     * @param timeout the request timeout (null for no timeout)
+     * @return the future HTTP Response object
+     */
+    public static CompletableFuture<HttpResponse<InputStream>> getHttpStreamAsync(URI beacon_endpoint, 
+            Duration timeout) {
+        return sendAsync(createGetRequest(beacon_endpoint, timeout), 
+                HttpResponse.BodyHandlers.ofInputStream());
+    }
+
+    /**
+     * Conditional version of the getHttpStreamAsync() method.
+     * The server may reply with 304 (Not Modified) and an empty body.
+     * 
+     * @param beacon_endpoint the endpoint URL
+     * @param timeout the request timeout (null for no timeout)
+     * @param etag the cached response ETag (If-None-Match) or null
+     * @param last_modified the cached response Last-Modified (If-Modified-Since) or null
+     * @return the future HTTP Response object
+     */
+    public static CompletableFuture<HttpResponse<InputStream>> getHttpStreamAsync(URI beacon_endpoint, 
+            Duration timeout, String etag, String last_modified) {
+        final HttpRequest request = createGetRequest(beacon_endpoint, timeout);
+        if (etag == null && last_modified == null) {
+            return sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+        }
+        final HttpRequest.Builder builder = HttpRequest.newBuilder(request, (name, value) -> true);
+        if (etag != null) {
+            builder.header("If-None-Match", etag);
+        }
+        if (last_modified != null) {
+            builder.header("If-Modified-Since", last_modified);
+        }
+        return sendAsync(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+    }
+
     public static HttpResponse<String> postHttpRequest(URI beacon_endpoint, String query)
             throws IOException, InterruptedException {
         
-        HttpRequest.Builder builder = HttpRequest.newBuilder(beacon_endpoint)
+        return send(createPostRequest(beacon_endpoint, query, request_timeout), 
+                HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Streaming version of the postHttpRequest() method.
+     * The response body should be consumed via readJson() method.
+     * 
+     * @param beacon_endpoint the endpoint URL
+     * @param query the request body
+     * @return the HTTP Response object
+     * @throws IOException
+     * @throws InterruptedException 
+     */
+    public static HttpResponse<InputStream> postHttpStream(URI beacon_endpoint, String query)
+            throws IOException, InterruptedException {
+        
+        return postHttpStream(beacon_endpoint, query, request_timeout);
+    }
+
+    /**
+     * Streaming version of the postHttpRequest() method.
+     * The response body should be consumed via readJson() method.
+     * 
+     * @param beacon_endpoint the endpoint URL
+     * @param query the request body
+     * @param timeout the request timeout (null for no timeout)
+     * @return the HTTP Response object
+     * @throws IOException
+     * @throws InterruptedException 
+     */
+    public static HttpResponse<InputStream> postHttpStream(URI beacon_endpoint, String query,
+            Duration timeout) throws IOException, InterruptedException {
+        
+        return send(createPostRequest(beacon_endpoint, query, timeout), 
+                HttpResponse.BodyHandlers.ofInputStream());
+    }
+
+    /**
+     * Parses the response body directly from the stream.
+     * When the body exceeds the maximum body size or is not read within 
+     * the request timeout, the download is aborted.
+     * 
+     * @param http_response streamed HTTP response
+     * @return parsed JSON value
+     * 
+     * @throws BodyTooLargeException when the body exceeds the maximum body size
+     * @throws HttpTimeoutException when the body is not read within the request timeout
+     * @throws IOException 
+     * @throws JsonException when the body is not a valid JSON
+     */
+    public static JsonValue readJson(HttpResponse<InputStream> http_response) 
+            throws IOException {
+        return readJson(http_response, null, null);
+    }
+
+    /**
+     * Parses the response body directly from the stream measuring the time 
+     * spent waiting for the body (DOWNLOAD) and parsing it (PARSE).
+     * 
+     * @param http_response streamed HTTP response
+     * @param endpoint the endpoint to report metrics for
+     * @param reporter the observer to report metrics to (null - no metrics)
+     * 
+     * @return parsed JSON value
+     * 
+     * @throws IOException 
+     */
+    public static JsonValue readJson(HttpResponse<InputStream> http_response, 
+            String endpoint, ValidationObserver reporter) throws IOException {
+        return readJson(http_response, endpoint, reporter, 
+                http_response.request().timeout().orElse(null));
+    }
+
+    /**
+     * Parses the response body directly from the stream within the validation 
+     * time budget. The body must be read within the minimum of the request 
+     * timeout and the time remaining at the moment the reading starts.
+     * 
+     * @param http_response streamed HTTP response
+     * @param endpoint the endpoint to report metrics for
+     * @param reporter the observer to report metrics to (null - no metrics)
+     * @param deadline the validation time budget
+     * 
+     * @return parsed JSON value
+     * 
+     * @throws IOException 
+     */
+    public static JsonValue readJson(HttpResponse<InputStream> http_response, 
+            String endpoint, ValidationObserver reporter, ValidationDeadline deadline) 
+            throws IOException {
+        return readJson(http_response, endpoint, reporter, deadline.timeout());
+    }
+
+    /**
+     * Reads the response body into the byte array within the validation 
+     * time budget, so the same bytes may be parsed, bound and cached.
+     * Only the time spent waiting for the body (DOWNLOAD) is reported.
+     * 
+     * @param http_response streamed HTTP response
+     * @param endpoint the endpoint to report metrics for
+     * @param reporter the observer to report metrics to (null - no metrics)
+     * @param deadline the validation time budget
+     * 
+     * @return the response body
+     * 
+     * @throws BodyTooLargeException when the body exceeds the maximum body size
+     * @throws HttpTimeoutException when the body is not read within the timeout
+     * @throws IOException 
+     */
+    public static byte[] readBytes(HttpResponse<InputStream> http_response, 
+            String endpoint, ValidationObserver reporter, ValidationDeadline deadline) 
+            throws IOException {
+        return read(http_response, endpoint, reporter, deadline.timeout(), false,
+                InputStream::readAllBytes);
+    }
+
+    private static JsonValue readJson(HttpResponse<InputStream> http_response, 
+            String endpoint, ValidationObserver reporter, Duration timeout) throws IOException {
+        return read(http_response, endpoint, reporter, timeout, true, in -> {
+            try (JsonReader reader = Json.createReader(in)) {
+                return reader.readValue();
+            }
+        });
+    }
+
+    private static <T> T read(HttpResponse<InputStream> http_response, 
+            String endpoint, ValidationObserver reporter, Duration timeout, 
+            boolean parse, BodyReader<T> body_reader) throws IOException {
+        
+        final long limit = max_body_size;
+        if (limit > 0) {
+            final OptionalLong length = http_response.headers().firstValueAsLong("Content-Length");
+            if (length.isPresent() && length.getAsLong() > limit) {
+                http_response.body().close();
+                throw new BodyTooLargeException(http_response.uri(), limit);
+            }
+        }
+
+        // body reading is not covered by the HttpClient request timeout
+        final AtomicBoolean timedout = new AtomicBoolean();
+        final ScheduledFuture<?> cancel = timeout == null ? null :
+                timer.schedule(() -> {
+                    timedout.set(true);
+                    discard(http_response);
+                }, Math.max(1, timeout.toMillis()), TimeUnit.MILLISECONDS);
+
+        final long start = System.nanoTime();
+        final InputStream body = limit > 0 ? 
+                new BoundedInputStream(http_response, limit) : http_response.body();
+        final MeteredInputStream metered = reporter == null ? null : new MeteredInputStream(body);
+        
+        try (InputStream in = metered == null ? body : metered) {
+            return body_reader.read(in);
+        } catch (JsonException ex) {
+            for (Throwable th = ex.getCause(); th != null; th = th.getCause()) {
+                if (th instanceof BodyTooLargeException e) {
+                    throw e;
+                }
+            }
+            if (timedout.get()) {
+                throw new HttpTimeoutException(String.format("response from %s timed out", 
+                        http_response.uri()));
+            }
+            throw ex;
+        } catch (IOException ex) {
+            if (timedout.get()) {
+                throw new HttpTimeoutException(String.format("response from %s timed out", 
+                        http_response.uri()));
+            }
+            throw ex;
+        } finally {
+            if (cancel != null) {
+                cancel.cancel(false);
+            }
+            if (metered != null) {
+                final long elapsed = System.nanoTime() - start;
+                reporter.metric(new ValidationMetric(endpoint, ValidationPhase.DOWNLOAD, 
+                        metered.nanos, metered.bytes, 0));
+                if (parse) {
+                    reporter.metric(new ValidationMetric(endpoint, ValidationPhase.PARSE, 
+                            Math.max(0, elapsed - metered.nanos)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Reports the timings of the request: waiting for the permit of the 
+     * per host requests limit (QUEUE), failed attempts together with the 
+     * backoff delays (RETRY) and the final attempt until the response headers 
+     * are received (TTFB), so the validator's own throttling is not 
+     * attributed to the beacon or the network.
+     * 
+     * @param http_response the HTTP response
+     * @param endpoint the endpoint to report metrics for
+     * @param reporter the observer to report metrics to
+     */
+    public static void reportTimings(HttpResponse http_response, String endpoint, 
+            ValidationObserver reporter) {
+        if (http_response instanceof TimedHttpResponse response) {
+            final RequestTimings timings = response.timings;
+            if (timings.queued >= 0) {
+                reporter.metric(new ValidationMetric(endpoint, ValidationPhase.QUEUE, 
+                        timings.queued));
+            }
+            if (timings.retries > 0) {
+                reporter.metric(new ValidationMetric(endpoint, ValidationPhase.RETRY, 
+                        timings.sent - timings.started, 0, 0, timings.retries));
+            }
+            reporter.metric(new ValidationMetric(endpoint, ValidationPhase.TTFB, 
+                    timings.received - timings.sent));
+        }
+    }
+
+    private static <T> HttpResponse<T> send(HttpRequest request, 
+            HttpResponse.BodyHandler<T> handler) throws IOException, InterruptedException {
+        
+        final CompletableFuture<HttpResponse<T>> future = sendAsync(request, handler);
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            throw ex;
+        } catch (ExecutionException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof IOException e) {
+                throw e;
+            } else if (cause instanceof RuntimeException e) {
+                throw e;
+            } else if (cause instanceof Error e) {
+                throw e;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Sends the request respecting per host concurrency limit.
+     * The request timeout limits the overall time including waiting for 
+     * the permit and retries.
+     * For the streamed responses the permit is released only when the 
+     * body is read to the end, closed or discarded.
+     */
+    private static <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, 
+            HttpResponse.BodyHandler<T> handler) {
+        
+        final long until = request.timeout()
+                .map(timeout -> System.nanoTime() + timeout.toNanos()).orElse(0L);
+
+        final RequestTimings timings = new RequestTimings();
+        
+        final int max_requests = max_host_requests;
+        if (max_requests <= 0) {
+            return sendAsync(request, handler, until, 0, timings)
+                    .thenApply(response -> new TimedHttpResponse(response, timings, null));
+        }
+
+        final URI uri = request.uri();
+        final HostRequestLimiter limiter = limiters.computeIfAbsent(
+                uri.getScheme() + "://" + uri.getAuthority(), 
+                k -> new HostRequestLimiter(max_requests));
+
+        final CompletableFuture<HttpResponse<T>> result = new CompletableFuture();
+        final long requested = System.nanoTime();
+        limiter.acquire()
+                .thenCompose(v -> {
+                    timings.queued = System.nanoTime() - requested;
+                    return sendAsync(request, handler, until, 0, timings);
+                })
+                .whenComplete((response, th) -> {
+                    if (th != null) {
+                        limiter.release();
+                        result.completeExceptionally(th instanceof CompletionException && 
+                                th.getCause() != null ? th.getCause() : th);
+                    } else if (response.body() instanceof InputStream) {
+                        // the permit is kept until the body is read or discarded
+                        final HttpResponse<T> streamed = new TimedHttpResponse(response, timings, limiter);
+                        if (!result.complete(streamed)) {
+                            discard(streamed); // cancelled
+                        }
+                    } else {
+                        limiter.release();
+                        result.complete(new TimedHttpResponse(response, timings, null));
+                    }
+                });
+        return result;
+    }
+
+    /**
+     * Sends the request retrying it with exponential backoff and jitter.
+     */
+    private static <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, 
+            HttpResponse.BodyHandler<T> handler, long until, int attempt, 
+            RequestTimings timings) {
+
+        final HttpRequest req;
+        if (until == 0) {
+            req = request;
+        } else {
+            final long remaining = until - System.nanoTime();
+            if (remaining <= 0) {
+                return CompletableFuture.failedFuture(new HttpTimeoutException(
+                        String.format("request to %s timed out", request.uri())));
+            }
+            req = HttpRequest.newBuilder(request, (name, value) -> true)
+                    .timeout(Duration.ofNanos(remaining)).build();
+        }
+
+        final long sent = System.nanoTime();
+        if (attempt == 0) {
+            timings.started = sent;
+        }
+        return http_client.sendAsync(req, handler).handle((response, th) -> {
+            final long received = System.nanoTime();
+            if (attempt < max_retries) {
+                final Throwable ex = th instanceof CompletionException && 
+                        th.getCause() != null ? th.getCause() : th;
+                final long delay;
+                if (ex != null) {
+                    delay = ex instanceof IOException ? backoff(attempt) : -1;
+                } else if (isRetryable(response.statusCode())) {
+                    delay = retryAfter(response).orElseGet(() -> backoff(attempt));
+                } else {
+                    delay = -1;
+                }
+                final long wait = Math.min(delay, max_retry_delay);
+                if (delay >= 0 && (until == 0 || 
+                        until - System.nanoTime() > TimeUnit.MILLISECONDS.toNanos(wait))) {
+                    if (response != null) {
+                        discard(response);
+                    }
+                    timings.retries = attempt + 1;
+                    final Executor delayed = CompletableFuture.delayedExecutor(
+                            wait, TimeUnit.MILLISECONDS);
+                    return CompletableFuture.runAsync(() -> {}, delayed)
+                            .thenCompose(v -> sendAsync(request, handler, until, attempt + 1, timings));
+                }
+            }
+            timings.sent = sent;
+            timings.received = received;
+            return th != null ? CompletableFuture.<HttpResponse<T>>failedFuture(th) 
+                              : CompletableFuture.completedFuture(response);
+        }).thenCompose(future -> future);
+    }
+
+    private static boolean isRetryable(int status) {
+        return status == 429 || status == 502 || status == 503 || status == 504;
+    }
+
+    private static long backoff(int attempt) {
+        final long delay = Math.min(max_retry_delay, retry_delay << Math.min(attempt, 20));
+        return ThreadLocalRandom.current().nextLong(delay + 1);
+    }
+
+    /**
+     * Parses 'Retry-After' header which is either seconds or HTTP date.
+     */
+    private static Optional<Long> retryAfter(HttpResponse response) {
+        final Optional<String> retry_after = response.headers().firstValue("Retry-After");
+        if (retry_after.isPresent()) {
+            final String value = retry_after.get().trim();
+            try {
+                return Optional.of(Math.max(0, Long.parseLong(value) * 1000));
+            } catch (NumberFormatException ex) {
+                try {
+                    final ZonedDateTime date = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+                    return Optional.of(Math.max(0, Duration.between(ZonedDateTime.now(), date).toMillis()));
+                } catch (DateTimeParseException e) {}
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static void discard(HttpResponse response) {
+        if (response.body() instanceof InputStream in) {
+            try {
+                in.close();
+            } catch (IOException ex) {}
+        }
+    }
+
+    private static HttpRequest createGetRequest(URI beacon_endpoint, Duration timeout) {
+        return newRequestBuilder(beacon_endpoint, timeout)
+                .header("User-Agent", "BN/2.0.0")
+                .header("Accept", "application/json")
+                .header("Cache-Control", "no-cache, no-store, must-revalidate")
+                .header("Expires", "0")
+                .GET().build();
+    }
+
+    private static HttpRequest createPostRequest(URI beacon_endpoint, String query, 
+            Duration timeout) {
+        return newRequestBuilder(beacon_endpoint, timeout)
                 .header("User-Agent", "BN/2.0.0")
                 .header("Accept", "application/json")
                 .header("Content-Type", "application/json")
                 .header("Cache-Control", "no-cache, no-store, must-revalidate")
                 .header("Expires", "0")
-                .POST(BodyPublishers.ofString(query, StandardCharsets.UTF_8));
+                .POST(BodyPublishers.ofString(query, StandardCharsets.UTF_8)).build();
+    }
+
+    private static HttpRequest.Builder newRequestBuilder(URI beacon_endpoint, Duration timeout) {
+        final HttpRequest.Builder builder = HttpRequest.newBuilder(beacon_endpoint)
+                .version(http_version);
+        if (timeout != null) {
+            builder.timeout(timeout);
+        }
+        return builder;
+    }
+
+    /**
+     * The timings of the request attempts.
+     */
+    @FunctionalInterface
+    private interface BodyReader<T> {
+        T read(InputStream in) throws IOException;
+    }
+
+    private static class RequestTimings {
+        private long queued = -1; // no host requests limit
+        private long started;
+        private long sent;
+        private long received;
+        private int retries;
+    }
+
+    /**
+     * The HTTP response with its request timings.
+     * The streamed response holds the host permit (if any) until its body 
+     * is read to the end or closed.
+     */
+    private static class TimedHttpResponse<T> implements HttpResponse<T> {
         
-        return http_client.send(builder.build(), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        private final HttpResponse<T> response;
+        private final RequestTimings timings;
+        private final T body;
+        
+        TimedHttpResponse(HttpResponse<T> response, RequestTimings timings, 
+                HostRequestLimiter limiter) {
+            this.response = response;
+            this.timings = timings;
+            this.body = limiter == null ? response.body() 
+                    : (T)new PermitInputStream((InputStream)response.body(), limiter);
+        }
+
+        @Override
+        public int statusCode() {
+            return response.statusCode();
+        }
+
+        @Override
+        public HttpRequest request() {
+            return response.request();
+        }
+
+        @Override
+        public Optional<HttpResponse<T>> previousResponse() {
+            return response.previousResponse();
+        }
+
+        @Override
+        public HttpHeaders headers() {
+            return response.headers();
+        }
+
+        @Override
+        public T body() {
+            return body;
+        }
+
+        @Override
+        public Optional<SSLSession> sslSession() {
+            return response.sslSession();
+        }
+
+        @Override
+        public URI uri() {
+            return response.uri();
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return response.version();
+        }
+    }
+
+    /**
+     * InputStream that releases the host permit once the stream is 
+     * read to the end or closed.
+     */
+    private static class PermitInputStream extends FilterInputStream {
+        
+        private final HostRequestLimiter limiter;
+        private final AtomicBoolean released;
+        
+        PermitInputStream(InputStream in, HostRequestLimiter limiter) {
+            super(in);
+            
+            this.limiter = limiter;
+            this.released = new AtomicBoolean();
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                final int b = super.read();
+                if (b < 0) {
+                    release();
+                }
+                return b;
+            } catch (IOException ex) {
+                release();
+                throw ex;
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            try {
+                final int n = super.read(b, off, len);
+                if (n < 0) {
+                    release();
+                }
+                return n;
+            } catch (IOException ex) {
+                release();
+                throw ex;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                release();
+            }
+        }
+        
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                limiter.release();
+            }
+        }
+    }
+
+    /**
+     * InputStream that counts read bytes and the time spent waiting for them.
+     */
+    private static class MeteredInputStream extends FilterInputStream {
+        
+        private long bytes;
+        private long nanos;
+        
+        MeteredInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final long start = System.nanoTime();
+            try {
+                final int b = super.read();
+                if (b >= 0) {
+                    bytes++;
+                }
+                return b;
+            } finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            final long start = System.nanoTime();
+            try {
+                final int n = super.read(b, off, len);
+                if (n > 0) {
+                    bytes += n;
+                }
+                return n;
+            } finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+    }
+
+    /**
+     * InputStream that fails once more than 'limit' bytes are read.
+     */
+    private static class BoundedInputStream extends FilterInputStream {
+        
+        private final URI uri;
+        private final long limit;
+        private long count;
+        
+        BoundedInputStream(HttpResponse<InputStream> http_response, long limit) {
+            super(http_response.body());
+            
+            this.uri = http_response.uri();
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            final int n = super.read(b, off, len);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+        
+        @Override
+        public long skip(long n) throws IOException {
+            final long skipped = super.skip(n);
+            count(skipped);
+            return skipped;
+        }
+
+        private void count(long n) throws IOException {
+            count += n;
+            if (count > limit) {
+                throw new BodyTooLargeException(uri, limit);
+            }
+        }
     }
 }
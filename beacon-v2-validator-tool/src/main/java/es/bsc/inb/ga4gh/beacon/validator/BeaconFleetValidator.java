@@ -0,0 +1,192 @@
+/**
+ * *****************************************************************************
+ * Copyright (C) 2024 ELIXIR ES, Spanish National Bioinformatics Institute (INB)
+ * and Barcelona Supercomputing Center (BSC)
+ *
+ * Modifications to the initial code base are copyright of their respective
+ * authors, or their employers as appropriate.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *****************************************************************************
+ */
+
+package es.bsc.inb.ga4gh.beacon.validator;
+
+import jakarta.json.Json;
+import jakarta.json.stream.JsonGenerator;
+import jakarta.json.stream.JsonGeneratorFactory;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Validates many beacons concurrently in the same process.
+ * 
+ * Every beacon is validated with its own errors collector, so reports are
+ * isolated, while the compiled schemas and HTTP connections are shared.
+ * 
+ * @author Dmitry Repchevsky
+ */
+
+public class BeaconFleetValidator {
+    
+    public final static int DEFAULT_WORKERS = 4;
+    
+    private final int workers;
+    private final int parallelism;
+    private final Duration budget;
+    
+    /**
+     * @param workers number of concurrently validated beacons
+     * @param parallelism number of concurrently validated endpoints per beacon
+     * @param budget the time budget for each beacon validation (null for no limit)
+     */
+    public BeaconFleetValidator(int workers, int parallelism, Duration budget) {
+        this.workers = Math.max(1, workers);
+        this.parallelism = Math.max(1, parallelism);
+        this.budget = budget;
+    }
+    
+    /**
+     * Validates beacons printing the summary for each validated beacon.
+     * 
+     * @param beacons the list of beacons' API endpoints
+     * @return the list of the reports in the same order as beacons
+     */
+    public List<BeaconReport> validate(List<String> beacons) {
+        final long start = System.nanoTime();
+        
+        final ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            final List<CompletableFuture<BeaconReport>> futures = new ArrayList();
+            for (String beacon : beacons) {
+                futures.add(CompletableFuture.supplyAsync(() -> validate(beacon), executor)
+                        .whenComplete((report, ex) -> {
+                            if (report != null) {
+                                System.out.println(report);
+                            }
+                        }));
+            }
+
+            final List<BeaconReport> reports = new ArrayList();
+            for (CompletableFuture<BeaconReport> future : futures) {
+                reports.add(future.join());
+            }
+            
+            final long errors = reports.stream().mapToLong(r -> r.errors().size()).sum();
+            System.out.println(String.format("validated %d beacons, %d errors found (%d ms)", 
+                    reports.size(), errors, Duration.ofNanos(System.nanoTime() - start).toMillis()));
+            
+            return reports;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private BeaconReport validate(String beacon) {
+        final long start = System.nanoTime();
+        final ConcurrentValidationErrorsCollector collector = new ConcurrentValidationErrorsCollector();
+        try {
+            BeaconValidator.validate(beacon, collector, parallelism, budget);
+        } catch (Exception ex) {
+            collector.error(new BeaconValidationMessage(
+                    BeaconValidationErrorType.CONNECTION_ERROR,
+                    null, beacon, null,
+                    String.format("validation failed: %s", ex.getMessage())));
+        }
+        return new BeaconReport(beacon, collector.getErrors(), Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /**
+     * Reads the list of beacons. Empty lines and lines starting with '#' are ignored.
+     * 
+     * @param file the file with the list of beacons
+     * @return the list of beacons' API endpoints
+     * @throws IOException 
+     */
+    public static List<String> readBeacons(Path file) throws IOException {
+        return Files.readAllLines(file).stream()
+                .map(String::trim)
+                .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                .toList();
+    }
+
+    /**
+     * Writes the combined report with a summary and all the errors for every beacon.
+     * 
+     * @param file the report file
+     * @param reports beacons' validation reports
+     */
+    public static void writeReport(String file, List<BeaconReport> reports) {
+        final JsonGeneratorFactory f = Json.createGeneratorFactory(Map.of(JsonGenerator.PRETTY_PRINTING, true));
+        try(JsonGenerator g = f.createGenerator(Files.newBufferedWriter(
+                Paths.get(file), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING))) {
+            g.writeStartArray();
+            for (BeaconReport report : reports) {
+                g.writeStartObject();
+                g.write("beacon", report.beacon());
+                g.write("time", report.time().toMillis());
+                g.writeStartObject("summary");
+                for (Map.Entry<BeaconValidationErrorType, Integer> entry : report.summary().entrySet()) {
+                    g.write(entry.getKey().name(), entry.getValue());
+                }
+                g.writeEnd();
+                g.writeStartArray("errors");
+                for (BeaconValidationMessage error : report.errors()) {
+                    BeaconValidator.writeError(g, error);
+                }
+                g.writeEnd();
+                g.writeEnd();
+            }
+            g.writeEnd();
+        } catch (IOException ex) {
+            Logger.getLogger(BeaconFleetValidator.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    public record BeaconReport(String beacon, List<BeaconValidationMessage> errors, Duration time) {
+
+        /**
+         * @return the number of errors of each type
+         */
+        public Map<BeaconValidationErrorType, Integer> summary() {
+            final Map<BeaconValidationErrorType, Integer> summary = new EnumMap(BeaconValidationErrorType.class);
+            for (BeaconValidationMessage error : errors) {
+                if (error.type != null) {
+                    summary.merge(error.type, 1, Integer::sum);
+                }
+            }
+            return summary;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("%s: %d errors %s (%d ms)", beacon, errors.size(), summary(), time.toMillis());
+        }
+    }
+}
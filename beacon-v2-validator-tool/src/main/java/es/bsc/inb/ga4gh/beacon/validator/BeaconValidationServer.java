@@ -0,0 +1,543 @@
+/**
+ * *****************************************************************************
+ * Copyright (C) 2024 ELIXIR ES, Spanish National Bioinformatics Institute (INB)
+ * and Barcelona Supercomputing Center (BSC)
+ *
+ * Modifications to the initial code base are copyright of their respective
+ * authors, or their employers as appropriate.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *****************************************************************************
+ */
+
+
+package es.bsc.inb.ga4gh.beacon.validator;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.json.Json;
+import jakarta.json.JsonException;
+import jakarta.json.JsonNumber;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonString;
+import jakarta.json.bind.Jsonb;
+import jakarta.json.bind.JsonbBuilder;
+import jakarta.json.stream.JsonGenerator;
+import jakarta.json.stream.JsonGeneratorFactory;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Long-running validation service that exposes the validator over HTTP.
+ * 
+ * Validation jobs are queued and executed by the limited number of workers.
+ * The JSON-B instance, compiled framework and entity schemas and HTTP 
+ * connections are shared by all the jobs, so they stay warm between validations.
+ * 
+ * <pre>
+ * POST /jobs              - submit the job {"framework": url, "budget": seconds, "metrics": false}
+ * GET  /jobs              - list of jobs
+ * GET  /jobs/{id}         - job status and errors summary
+ * GET  /jobs/{id}/results - the job results streamed as NDJSON
+ * </pre>
+ * 
+ * @author Dmitry Repchevsky
+ */
+
+public class BeaconValidationServer implements AutoCloseable {
+    
+    public final static String API = "/jobs";
+    public final static int DEFAULT_PORT = 8090;
+    public final static int DEFAULT_QUEUE_SIZE = 64;
+    
+    // maximum number of finished jobs kept in memory
+    public final static int MAX_FINISHED_JOBS = 256;
+
+    private final int workers;
+    private final int parallelism;
+    private final Duration budget;
+    private final int queue_size;
+    
+    private final Jsonb jsonb;
+    private final JsonGeneratorFactory factory;
+    private final AtomicLong ids;
+    private final Map<String, Job> jobs;
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private ThreadPoolExecutor runner;
+    private String endpoint;
+
+    public BeaconValidationServer(int workers, int parallelism, Duration budget) {
+        this(workers, parallelism, budget, DEFAULT_QUEUE_SIZE);
+    }
+
+    /**
+     * @param workers number of concurrently validated beacons
+     * @param parallelism number of concurrently validated endpoints per beacon
+     * @param budget the default time budget for each validation (null for no limit)
+     * @param queue_size maximum number of queued jobs
+     */
+    public BeaconValidationServer(int workers, int parallelism, Duration budget, 
+            int queue_size) {
+        this.workers = Math.max(1, workers);
+        this.parallelism = Math.max(1, parallelism);
+        this.budget = budget;
+        this.queue_size = Math.max(1, queue_size);
+        
+        jsonb = JsonbBuilder.create();
+        factory = Json.createGeneratorFactory(Map.of());
+        ids = new AtomicLong();
+        jobs = new LinkedHashMap();
+    }
+
+    /**
+     * Starts the server on the loopback address.
+     * 
+     * @param port the server port (0 for a random one)
+     * 
+     * @return the server jobs endpoint
+     * 
+     * @throws IOException 
+     */
+    public String start(int port) throws IOException {
+        return start(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    /**
+     * Compiles the framework schemas and starts the server.
+     * 
+     * @param address the server address
+     * 
+     * @return the server jobs endpoint (e.g. 'http://127.0.0.1:8090/jobs')
+     * 
+     * @throws IOException 
+     */
+    public synchronized String start(InetSocketAddress address) throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("validation server is already started");
+        }
+        
+        // compile the framework schemas, so the first job does not wait for them
+        BeaconValidatorWarmUp.warmUp(jsonb);
+        
+        server = HttpServer.create(address, 0);
+
+        final InetSocketAddress bound = server.getAddress();
+        final String host = bound.getAddress().isAnyLocalAddress() 
+                ? "localhost" : bound.getAddress().getHostAddress();
+        endpoint = String.format("http://%s:%d%s", host.contains(":") 
+                ? "[" + host + "]" : host, bound.getPort(), API);
+
+        runner = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS, 
+                new ArrayBlockingQueue(queue_size));
+        
+        // results streams are blocking, so they may not share the limited pool
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext(API, this::handle);
+        server.start();
+        
+        return endpoint;
+    }
+
+    /**
+     * @return the server jobs endpoint
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            runner.shutdownNow();
+            executor.shutdownNow();
+            server = null;
+        }
+    }
+    
+    @Override
+    public void close() {
+        stop();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            final String method = exchange.getRequestMethod();
+            final String[] segments = exchange.getRequestURI().getPath()
+                    .substring(API.length()).replaceFirst("^/", "").split("/");
+            if (segments[0].isEmpty()) {
+                switch (method) {
+                    case "POST" -> submit(exchange);
+                    case "GET" -> send(exchange, 200, list());
+                    default -> send(exchange, 405, error("method not allowed"));
+                }
+            } else if (!"GET".equals(method)) {
+                send(exchange, 405, error("method not allowed"));
+            } else {
+                final Job job;
+                synchronized(jobs) {
+                    job = jobs.get(segments[0]);
+                }
+                if (job == null || segments.length > 2 || 
+                    segments.length == 2 && !"results".equals(segments[1])) {
+                    send(exchange, 404, error("not found"));
+                } else if (segments.length == 1) {
+                    send(exchange, 200, status(job));
+                } else {
+                    stream(exchange, job);
+                }
+            }
+        } catch (IOException ex) {
+            // the client has gone
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void submit(HttpExchange exchange) throws IOException {
+        final JsonObject request;
+        try (JsonReader reader = Json.createReader(exchange.getRequestBody())) {
+            request = reader.readObject();
+        } catch (JsonException ex) {
+            send(exchange, 400, error("invalid request: " + ex.getMessage()));
+            return;
+        }
+
+        if (!(request.get("framework") instanceof JsonString framework)) {
+            send(exchange, 400, error("no 'framework' specified"));
+            return;
+        }
+
+        final Duration time_budget = request.get("budget") instanceof JsonNumber seconds 
+                ? Duration.ofSeconds(seconds.longValue()) : budget;
+        final Job job = new Job(Long.toString(ids.incrementAndGet()), framework.getString(), 
+                time_budget, request.getBoolean("metrics", false));
+
+        synchronized(jobs) {
+            jobs.put(job.id, job);
+            evict();
+        }
+        try {
+            runner.execute(() -> run(job));
+        } catch (RejectedExecutionException ex) {
+            synchronized(jobs) {
+                jobs.remove(job.id);
+            }
+            send(exchange, 503, error("too many queued jobs"));
+            return;
+        }
+        
+        exchange.getResponseHeaders().set("Location", API + "/" + job.id);
+        send(exchange, 202, status(job));
+    }
+
+    /**
+     * Removes the oldest finished jobs.
+     */
+    private void evict() {
+        int finished = 0;
+        for (Job job : jobs.values()) {
+            if (job.getState() == JobState.DONE) {
+                finished++;
+            }
+        }
+        for (Iterator<Job> iter = jobs.values().iterator(); 
+                finished > MAX_FINISHED_JOBS && iter.hasNext();) {
+            if (iter.next().getState() == JobState.DONE) {
+                iter.remove();
+                finished--;
+            }
+        }
+    }
+
+    private void run(Job job) {
+        job.start();
+        List<String> skipped = List.of();
+        try {
+            skipped = BeaconValidator.validate(job.framework, jsonb, job, parallelism, 
+                    job.budget, BeaconValidator.createErrorBudget());
+        } catch (Exception ex) {
+            job.error(new BeaconValidationMessage(
+                    BeaconValidationErrorType.CONNECTION_ERROR,
+                    null, job.framework, null,
+                    String.format("validation failed: %s", ex.getMessage())));
+        } finally {
+            job.finish(skipped);
+        }
+    }
+
+    /**
+     * Streams the job results as NDJSON until the job is finished.
+     */
+    private void stream(HttpExchange exchange, Job job) throws IOException, InterruptedException {
+        exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            int next = 0;
+            List<String> lines;
+            while ((lines = job.await(next)) != null) {
+                for (String line : lines) {
+                    out.write(line.getBytes(StandardCharsets.UTF_8));
+                    out.write('\n');
+                }
+                out.flush();
+                next += lines.size();
+            }
+        }
+    }
+
+    private String list() {
+        final List<Job> list;
+        synchronized(jobs) {
+            list = new ArrayList(jobs.values());
+        }
+        return line(g -> {
+            g.writeStartArray();
+            for (Job job : list) {
+                writeStatus(g, job);
+            }
+            g.writeEnd();
+        });
+    }
+
+    private String status(Job job) {
+        return line(g -> writeStatus(g, job));
+    }
+
+    private void writeStatus(JsonGenerator g, Job job) {
+        g.writeStartObject();
+        g.write("id", job.id);
+        g.write("framework", job.framework);
+        g.write("state", job.getState().name());
+        g.write("submitted", job.submitted.toString());
+        if (job.getState() != JobState.QUEUED) {
+            g.write("time", job.getTime().toMillis());
+        }
+        g.write("errors", job.getErrors());
+        writeSummary(g, job);
+        g.writeEnd();
+    }
+
+    private void writeSummary(JsonGenerator g, Job job) {
+        g.writeStartObject("summary");
+        for (Map.Entry<BeaconValidationErrorType, Integer> entry : job.getSummary().entrySet()) {
+            g.write(entry.getKey().name(), entry.getValue());
+        }
+        g.writeEnd();
+        final List<String> skipped = job.getSkipped();
+        if (!skipped.isEmpty()) {
+            g.writeStartArray("skipped");
+            for (String endpoint : skipped) {
+                g.write(endpoint);
+            }
+            g.writeEnd();
+        }
+    }
+
+    private String error(String message) {
+        return line(g -> g.writeStartObject().write("error", message).writeEnd());
+    }
+
+    private String line(LineWriter writer) {
+        final StringWriter line = new StringWriter();
+        try (JsonGenerator g = factory.createGenerator(line)) {
+            writer.write(g);
+        }
+        return line.toString();
+    }
+
+    private void send(HttpExchange exchange, int code, String json) throws IOException {
+        final byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(code, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    public static enum JobState {QUEUED, RUNNING, DONE}
+    
+    @FunctionalInterface
+    private static interface LineWriter {
+        void write(JsonGenerator g);
+    }
+
+    /**
+     * The validation job that keeps its results as NDJSON lines.
+     * The job is itself the observer of the validation.
+     */
+    private class Job implements ValidationObserver {
+        
+        final String id;
+        final String framework;
+        final Duration budget;
+        final boolean metrics;
+        final Instant submitted;
+
+        private final List<String> lines;
+        private final Map<BeaconValidationErrorType, Integer> summary;
+
+        private JobState state;
+        private long started;
+        private long finished;
+        private int errors;
+        private List<String> skipped;
+        
+        Job(String id, String framework, Duration budget, boolean metrics) {
+            this.id = id;
+            this.framework = framework;
+            this.budget = budget;
+            this.metrics = metrics;
+            
+            submitted = Instant.now();
+            lines = new ArrayList();
+            summary = new EnumMap(BeaconValidationErrorType.class);
+            state = JobState.QUEUED;
+            skipped = List.of();
+        }
+
+        @Override
+        public void error(BeaconValidationMessage error) {
+            final String line = line(g -> BeaconValidator.writeError(g, error));
+            synchronized(this) {
+                errors++;
+                if (error.type != null) {
+                    summary.merge(error.type, 1, Integer::sum);
+                }
+                append(line);
+            }
+        }
+
+        @Override
+        public void message(String message) {
+            final String line = line(g -> g.writeStartObject().write("progress", message).writeEnd());
+            synchronized(this) {
+                append(line);
+            }
+        }
+
+        @Override
+        public void endpoint(String endpoint) {}
+
+        @Override
+        public void metric(ValidationMetric metric) {
+            if (metrics) {
+                final String line = line(g -> BeaconValidator.writeMetric(g, metric));
+                synchronized(this) {
+                    append(line);
+                }
+            }
+        }
+
+        synchronized void start() {
+            state = JobState.RUNNING;
+            started = System.nanoTime();
+        }
+        
+        /**
+         * Completes the job and appends the final summary line.
+         * The line is rendered once the job state is complete, so it 
+         * includes the skipped endpoints and the final time.
+         * 
+         * @param skipped endpoints skipped due to the time budget
+         */
+        synchronized void finish(List<String> skipped) {
+            this.skipped = skipped;
+            finished = System.nanoTime();
+            state = JobState.DONE;
+            append(line(g -> {
+                g.writeStartObject();
+                g.write("state", state.name());
+                g.write("errors", errors);
+                g.write("time", getTime().toMillis());
+                writeSummary(g, this);
+                g.writeEnd();
+            }));
+        }
+        
+        synchronized JobState getState() {
+            return state;
+        }
+        
+        synchronized int getErrors() {
+            return errors;
+        }
+
+        synchronized Map<BeaconValidationErrorType, Integer> getSummary() {
+            return new EnumMap(summary);
+        }
+
+        synchronized List<String> getSkipped() {
+            return skipped;
+        }
+
+        synchronized Duration getTime() {
+            return switch(state) {
+                case QUEUED -> Duration.ZERO;
+                case RUNNING -> Duration.ofNanos(System.nanoTime() - started);
+                case DONE -> Duration.ofNanos(finished - started);
+            };
+        }
+
+        /**
+         * Waits for the new results.
+         * 
+         * @param next the index of the first result to return
+         * 
+         * @return new results or null when the job is finished and all results are returned
+         * 
+         * @throws InterruptedException 
+         */
+        synchronized List<String> await(int next) throws InterruptedException {
+            while (next >= lines.size()) {
+                if (state == JobState.DONE) {
+                    return null;
+                }
+                wait();
+            }
+            return new ArrayList(lines.subList(next, lines.size()));
+        }
+
+        private void append(String line) {
+            lines.add(line);
+            notifyAll();
+        }
+    }
+}
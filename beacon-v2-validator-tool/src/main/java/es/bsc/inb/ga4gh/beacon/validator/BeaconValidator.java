@@ -26,18 +26,24 @@
 package es.bsc.inb.ga4gh.beacon.validator;
 
 import jakarta.json.Json;
+import jakarta.json.bind.Jsonb;
 import jakarta.json.stream.JsonGenerator;
 import jakarta.json.stream.JsonGeneratorFactory;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
 
 /**
  * @author Dmitry Repchevsky
@@ -47,16 +53,57 @@ public class BeaconValidator {
     
     private final static String HELP = 
             """
-            beacon-validator -f url [-o file] 
+            beacon-validator -f url [-o file [-n]] [-p n] [-s dir] [--offline] [-m bytes]
+            beacon-validator -l file [-w n] [-o file] [-p n] [-s dir] [--offline] [-m bytes]
+            beacon-validator --server [port] [-w n] [-p n] [-s dir] [--offline] [-m bytes]
             parameters:
               -h (--help)           - this help message
               -f (--framework)      - location of the beacon
+              -l (--list)           - file with the list of beacons' locations (one per line)
+              -w (--workers)        - number of concurrently validated beacons (default 4)
               -o (--output)         - report output file
+              -n (--ndjson)         - stream the report as NDJSON (one error per line)
+              -p (--parallelism)    - number of concurrently validated endpoints (default 1)
+              -s (--schema-cache)   - schema documents cache directory
+                 (--offline)        - use only cached schema documents
+                 (--response-cache) - metadata responses cache directory (conditional requests)
+                 (--incremental)    - fingerprints directory to skip unchanged endpoint sets
+                 (--max-age)        - hours before unchanged endpoint sets are fully validated again (default 24)
+              -m (--max-body-size)  - maximum response size in bytes (default 64MB, 0 - no limit)
+              -c (--host-requests)  - maximum concurrent requests per host (default 8, 0 - no limit)
+              -r (--retries)        - number of retries for failed requests (default 3)
+              -t (--timeout)        - request timeout in seconds (default 60, 0 - no timeout)
+              -b (--budget)         - time budget in seconds for the whole beacon validation
+              -a (--aggregate)      - report only n errors of each group of similar schema errors
+                 (--endpoint-errors) - stop the endpoint validation after n errors
+                 (--beacon-errors)  - stop the beacon validation after n errors
+                 (--pass-fail)      - stop at the first error and report PASS or FAIL
+              -k (--sample)         - number of records to validate per entry type (default 0)
+                 (--page-size)      - number of records per sampled page (default 100)
+                 (--metrics)        - print timing metrics summary and write metrics to the file (optional)
+                 (--jfr)            - record validation events to the flight recording file (default beacon-validator.jfr)
+                 (--server)         - run the validation service on the local port (default 8090)
+                 (--warm-up)        - initialize the validator without any beacon and exit (CDS training run)
             examples:
               >java -jar beacon-validator.jar -f https://beacons.bsc.es/beacon/v2.0.0/
               >java -jar beacon-validator.jar -f https://beacons.bsc.es/beacon/v2.0.0/ -o report.json
+              >java -jar beacon-validator.jar -l beacons.txt -w 16 -o report.json
             """;
 
+    // number of reported errors per group of similar errors (negative - no aggregation)
+    private static int aggregation = -1;
+    
+    // errors budgets (0 - no limit)
+    private static int max_endpoint_errors;
+    private static int max_beacon_errors;
+    private static boolean pass_fail;
+    
+    // deep sampling (0 - no sampling)
+    private static int sampling;
+    private static int page_size = BeaconEndpointValidator.DEFAULT_PAGE_SIZE;
+
+    private final static String DEFAULT_RECORDING_FILE = "beacon-validator.jfr";
+
     public static void main(String[] args) {
         Map<String, List<String>> params = parameters(args);
         
@@ -67,6 +114,15 @@ public class BeaconValidator {
             System.exit(0);            
         }
         
+        if (params.containsKey("--warm-up")) {
+            try {
+                BeaconValidatorWarmUp.main(new String[0]);
+            } catch (IOException ex) {
+                System.err.println("warm up failed: " + ex.getMessage());
+                System.exit(1);
+            }
+        }
+        
         List<String> frameworks = params.get("-f");
         if (frameworks == null) {
             frameworks = params.get("--framework");
@@ -75,34 +131,327 @@ public class BeaconValidator {
             System.exit(1);
         }
         
-        if (frameworks == null) {
+        final String list = parameter(params, "-l", "--list");
+        final boolean server = params.containsKey("--server");
+
+        if (frameworks == null && list == null && !server) {
             System.err.println("no beacon lacation specified");
             System.exit(1);
-        } else if (frameworks.size() > 1) {
+        } else if (frameworks != null && list != null || 
+                   server && (frameworks != null || list != null)) {
+            System.err.println("only one of the '-f', '-l' or '--server' may be used");
+            System.exit(1);
+        } else if (frameworks != null && frameworks.size() > 1) {
             System.err.println("more than one locations specified");
             System.exit(1);            
         }
 
+        startRecording(params);
+        installSchemaCache(params);
+        installResponseCache(params);
+        installFingerprints(params);
+        
+        final String max_body_size = parameter(params, "-m", "--max-body-size");
+        if (max_body_size != null) {
+            ValidatorBeaconRequest.setMaxBodySize(number(max_body_size, "maximum body size"));
+        }
+        
+        final String host_requests = parameter(params, "-c", "--host-requests");
+        if (host_requests != null) {
+            ValidatorBeaconRequest.setMaxHostRequests((int)number(host_requests, "host requests"));
+        }
+
+        final String retries = parameter(params, "-r", "--retries");
+        if (retries != null) {
+            ValidatorBeaconRequest.setMaxRetries((int)number(retries, "retries"));
+        }
+
+        final String timeout = parameter(params, "-t", "--timeout");
+        if (timeout != null) {
+            ValidatorBeaconRequest.setRequestTimeout(Duration.ofSeconds(number(timeout, "timeout")));
+        }
+
+        final String aggregate = parameter(params, "-a", "--aggregate");
+        if (aggregate != null) {
+            aggregation = (int)number(aggregate, "aggregate");
+        }
+
+        final String endpoint_errors = parameter(params, null, "--endpoint-errors");
+        if (endpoint_errors != null) {
+            max_endpoint_errors = (int)number(endpoint_errors, "endpoint errors");
+        }
+
+        final String beacon_errors = parameter(params, null, "--beacon-errors");
+        if (beacon_errors != null) {
+            max_beacon_errors = (int)number(beacon_errors, "beacon errors");
+        }
+        
+        pass_fail = params.containsKey("--pass-fail");
+
+        final String sample = parameter(params, "-k", "--sample");
+        if (sample != null) {
+            sampling = (int)number(sample, "sample");
+        }
+
+        final String page = parameter(params, null, "--page-size");
+        if (page != null) {
+            page_size = (int)number(page, "page size");
+        }
+
+        final String budget = parameter(params, "-b", "--budget");
+        final Duration time_budget = budget == null ? null : Duration.ofSeconds(number(budget, "budget"));
+
+        final String parallelism = parameter(params, "-p", "--parallelism");
+        final String output = parameter(params, "-o", "--output");
+
+        if (server) {
+            final String port = parameter(params, null, "--server");
+            final String workers = parameter(params, "-w", "--workers");
+            final BeaconValidationServer validation_server = new BeaconValidationServer(
+                    workers == null ? BeaconFleetValidator.DEFAULT_WORKERS : (int)number(workers, "workers"),
+                    parallelism == null ? 1 : (int)number(parallelism, "parallelism"),
+                    time_budget);
+            try {
+                final String endpoint = validation_server.start(port == null 
+                        ? BeaconValidationServer.DEFAULT_PORT : (int)number(port, "port"));
+                Runtime.getRuntime().addShutdownHook(new Thread(validation_server::stop));
+                System.out.println("validation server started: " + endpoint);
+            } catch (IOException ex) {
+                System.err.println("unable to start validation server: " + ex.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+
+        if (list != null) {
+            final String workers = parameter(params, "-w", "--workers");
+            final BeaconFleetValidator validator = new BeaconFleetValidator(
+                    workers == null ? BeaconFleetValidator.DEFAULT_WORKERS : (int)number(workers, "workers"),
+                    parallelism == null ? 1 : (int)number(parallelism, "parallelism"),
+                    time_budget);
+            
+            final List<String> beacons;
+            try {
+                beacons = BeaconFleetValidator.readBeacons(Paths.get(list));
+            } catch (IOException ex) {
+                System.err.println("error reading beacons list: " + ex.getMessage());
+                System.exit(1);
+                return;
+            }
+
+            final List<BeaconFleetValidator.BeaconReport> reports = validator.validate(beacons);
+            if (output != null) {
+                BeaconFleetValidator.writeReport(output, reports);
+            }
+            return;
+        }
+
         final String framework = frameworks.get(0);
         
+        final boolean metrics = params.containsKey("--metrics");
+        final String metrics_file = parameter(params, null, "--metrics");
+
+        final int endpoints = parallelism == null ? 1 : (int)number(parallelism, "parallelism");
+        final ErrorBudget error_budget = createErrorBudget();
         final List<BeaconValidationMessage> errors = new ArrayList();
-        final ConsoleValidationObserver reporter = new ConsoleValidationObserver(errors);
         
-        final BeaconMetadataModel model = BeaconMetadataModel.load(framework, reporter);
-        final BeaconEndpointValidator validator = new BeaconEndpointValidator(model);
+        final List<String> skipped;
+        if (output == null) {
+            skipped = validate(framework, new ConsoleValidationObserver(), endpoints, 
+                    time_budget, error_budget, metrics, metrics_file);
+        } else if (params.containsKey("-n") || params.containsKey("--ndjson")) {
+            try (NdjsonValidationObserver reporter = new NdjsonValidationObserver(
+                    Paths.get(output), new ConsoleValidationObserver())) {
+                reporter.setWriteMetrics(metrics);
+                skipped = validate(framework, reporter, endpoints, time_budget, 
+                        error_budget, metrics, metrics_file);
+            } catch (IOException ex) {
+                System.err.println("error writing report: " + ex.getMessage());
+                System.exit(1);
+                return;
+            }
+        } else {
+            skipped = validate(framework, new ConsoleValidationObserver(errors), endpoints, 
+                    time_budget, error_budget, metrics, metrics_file);
+            writeErrors(output, errors);
+        }
+        
+        if (!skipped.isEmpty()) {
+            System.out.println("skipped endpoints (time budget exhausted):");
+            for (String endpoint : skipped) {
+                System.out.print("    ");
+                System.out.println(endpoint);
+            }
+        }
+        
+        if (pass_fail) {
+            final boolean passed = error_budget.getErrors() == 0 && skipped.isEmpty();
+            System.out.println(passed ? "PASS" : "FAIL");
+            if (!passed) {
+                System.exit(1);
+            }
+        }
+    }
+
+    /**
+     * Validates the beacon.
+     * 
+     * @param framework Beacon's API endpoint
+     * @param reporter validation process observer
+     * @param parallelism number of concurrently validated endpoints
+     * @param budget the time budget for the validation (null for no limit)
+     * 
+     * @return the list of endpoints skipped due to the exhausted time budget
+     */
+    static List<String> validate(String framework, ValidationObserver reporter, 
+            int parallelism, Duration budget) {
+        return validate(framework, reporter, parallelism, budget, createErrorBudget());
+    }
+
+    /**
+     * Validates the beacon within the errors budget.
+     * 
+     * @param framework Beacon's API endpoint
+     * @param reporter validation process observer
+     * @param parallelism number of concurrently validated endpoints
+     * @param budget the time budget for the validation (null for no limit)
+     * @param error_budget the errors budget for the validation
+     * 
+     * @return the list of endpoints skipped due to the exhausted time budget
+     */
+    static List<String> validate(String framework, ValidationObserver reporter, 
+            int parallelism, Duration budget, ErrorBudget error_budget) {
+        return validate(framework, null, reporter, parallelism, budget, error_budget);
+    }
+
+    /**
+     * Validates the beacon using the shared JSON-B instance.
+     * 
+     * @param framework Beacon's API endpoint
+     * @param jsonb JSON-B used to parse metadata responses (null for the shared one)
+     * @param reporter validation process observer
+     * @param parallelism number of concurrently validated endpoints
+     * @param budget the time budget for the validation (null for no limit)
+     * @param error_budget the errors budget for the validation
+     * 
+     * @return the list of endpoints skipped due to the exhausted time budget
+     */
+    static List<String> validate(String framework, Jsonb jsonb, ValidationObserver reporter, 
+            int parallelism, Duration budget, ErrorBudget error_budget) {
+        final ValidationDeadline deadline = new ValidationDeadline(budget);
+        
+        final BeaconMetadataModel model = BeaconMetadataModel.load(framework, jsonb,
+                reporter, deadline, error_budget);
+        final BeaconEndpointValidator validator = new BeaconEndpointValidator(
+                model, parallelism, deadline, error_budget);
+        validator.setAggregation(aggregation);
+        validator.setSampling(sampling, page_size);
         
         validator.validate(framework, reporter);
         
-        List<String> outputs = params.get("-o");
-        if (outputs == null) {
-            outputs = params.get("--output");
+        return deadline.getSkipped();
+    }
+
+    /**
+     * Validates the beacon collecting the validation metrics.
+     * 
+     * @param metrics whether to collect metrics and print the summary
+     * @param metrics_file the file to write collected metrics to (may be null)
+     */
+    private static List<String> validate(String framework, ValidationObserver reporter, 
+            int parallelism, Duration budget, ErrorBudget error_budget, 
+            boolean metrics, String metrics_file) {
+        if (!metrics) {
+            return validate(framework, reporter, parallelism, budget, error_budget);
         }
         
-        if (outputs != null && !outputs.isEmpty()) {
-            writeErrors(outputs.get(0), errors);
+        final ValidationMetricsCollector collector = new ValidationMetricsCollector(reporter);
+        final List<String> skipped = validate(framework, collector, parallelism, budget, error_budget);
+        
+        printMetrics(collector);
+        if (metrics_file != null) {
+            writeMetrics(metrics_file, collector);
         }
+        return skipped;
     }
-    
+
+    static ErrorBudget createErrorBudget() {
+        return pass_fail ? ErrorBudget.passFail() 
+                         : new ErrorBudget(max_endpoint_errors, max_beacon_errors);
+    }
+
+    private static void installResponseCache(Map<String, List<String>> params) {
+        final List<String> dirs = params.get("--response-cache");
+        if (dirs != null) {
+            if (dirs.isEmpty()) {
+                System.err.println("no response cache directory specified");
+                System.exit(1);
+            }
+            try {
+                MetadataResponseCache.setDefault(new MetadataResponseCache(Paths.get(dirs.get(0))));
+            } catch (IOException ex) {
+                System.err.println("unable to create response cache: " + ex.getMessage());
+                System.exit(1);
+            }
+        }
+    }
+
+    /**
+     * Starts the flight recording which is dumped to the file on exit.
+     */
+    private static void startRecording(Map<String, List<String>> params) {
+        final List<String> files = params.get("--jfr");
+        if (files != null) {
+            try {
+                final Recording recording = new Recording(Configuration.getConfiguration("default"));
+                recording.setName("beacon-validator");
+                recording.setDestination(Paths.get(files.isEmpty() ? DEFAULT_RECORDING_FILE : files.get(0)));
+                recording.setDumpOnExit(true);
+                recording.start();
+            } catch (IOException | ParseException ex) {
+                System.err.println("unable to start flight recording: " + ex.getMessage());
+                System.exit(1);
+            }
+        }
+    }
+
+    private static void installFingerprints(Map<String, List<String>> params) {
+        final List<String> dirs = params.get("--incremental");
+        if (dirs != null) {
+            if (dirs.isEmpty()) {
+                System.err.println("no fingerprints directory specified");
+                System.exit(1);
+            }
+            final List<String> max_age = params.get("--max-age");
+            try {
+                ValidationFingerprints.setDefault(new ValidationFingerprints(Paths.get(dirs.get(0)), 
+                        max_age == null || max_age.isEmpty() ? ValidationFingerprints.DEFAULT_MAX_AGE 
+                                : Duration.ofHours(number(max_age.get(0), "maximum age"))));
+            } catch (IOException ex) {
+                System.err.println("unable to create fingerprints directory: " + ex.getMessage());
+                System.exit(1);
+            }
+        }
+    }
+
+    private static void installSchemaCache(Map<String, List<String>> params) {
+        List<String> dirs = params.get("-s");
+        if (dirs == null) {
+            dirs = params.get("--schema-cache");
+        }
+        
+        final boolean offline = params.containsKey("--offline");
+        if (dirs != null || offline) {
+            final Path dir = dirs == null || dirs.isEmpty() ? null : Paths.get(dirs.get(0));
+            try {
+                SchemaDocumentCache.install(dir, offline);
+            } catch (IOException ex) {
+                System.err.println("unable to create schema cache: " + ex.getMessage());
+                System.exit(1);
+            }
+        }
+    }
+
     private static void writeErrors(String file, List<BeaconValidationMessage> errors) {
         
         final JsonGeneratorFactory f = Json.createGeneratorFactory(Map.of(JsonGenerator.PRETTY_PRINTING, true));
@@ -110,33 +459,145 @@ public class BeaconValidator {
                 Paths.get(file), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING))) {
             g.writeStartArray();
             for (BeaconValidationMessage error : errors) {
+                writeError(g, error);
+            }
+            g.writeEnd();
+        } catch (IOException ex) {
+            Logger.getLogger(BeaconValidator.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+    
+    private static void printMetrics(ValidationMetricsCollector collector) {
+        System.out.println(String.format("%-10s %8s %12s %10s %10s %10s %10s", 
+                "phase (ms)", "count", "total", "p50", "p90", "p99", "max"));
+        for (Map.Entry<ValidationPhase, ValidationMetricsCollector.Percentiles> entry : 
+                collector.getSummary().entrySet()) {
+            final ValidationMetricsCollector.Percentiles p = entry.getValue();
+            System.out.println(String.format("%-10s %8d %12.1f %10.1f %10.1f %10.1f %10.1f", 
+                    entry.getKey().name().toLowerCase(), p.count(), p.total() / 1e6, 
+                    p.p50() / 1e6, p.p90() / 1e6, p.p99() / 1e6, p.max() / 1e6));
+        }
+        System.out.println(String.format("downloaded: %d bytes, validated: %d records, retried: %d requests", 
+                collector.getBytes(), collector.getRecords(), collector.getRetries()));
+    }
+
+    private static void writeMetrics(String file, ValidationMetricsCollector collector) {
+        
+        final JsonGeneratorFactory f = Json.createGeneratorFactory(Map.of(JsonGenerator.PRETTY_PRINTING, true));
+        try(JsonGenerator g = f.createGenerator(Files.newBufferedWriter(
+                Paths.get(file), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING))) {
+            g.writeStartObject();
+            g.write("bytes", collector.getBytes());
+            g.write("records", collector.getRecords());
+            g.write("retries", collector.getRetries());
+            g.writeStartObject("summary");
+            for (Map.Entry<ValidationPhase, ValidationMetricsCollector.Percentiles> entry : 
+                    collector.getSummary().entrySet()) {
+                final ValidationMetricsCollector.Percentiles p = entry.getValue();
+                g.writeStartObject(entry.getKey().name().toLowerCase());
+                g.write("count", p.count());
+                g.write("total_ms", p.total() / 1e6);
+                g.write("p50_ms", p.p50() / 1e6);
+                g.write("p90_ms", p.p90() / 1e6);
+                g.write("p99_ms", p.p99() / 1e6);
+                g.write("max_ms", p.max() / 1e6);
+                g.writeEnd();
+            }
+            g.writeEnd();
+            g.writeStartArray("endpoints");
+            for (ValidationMetricsCollector.EndpointMetrics m : collector.getEndpoints()) {
                 g.writeStartObject();
-                if (error.code != null) {
-                    g.write("code", error.code);
+                g.write("endpoint", m.endpoint);
+                g.write("bytes", m.getBytes());
+                g.write("records", m.getRecords());
+                if (m.getRetries() > 0) {
+                    g.write("retries", m.getRetries());
                 }
-                if (error.path != null) {
-                    g.write("path", error.path);
-                }
-                if (error.location != null) {
-                    g.write("location", error.location);
-                }
-                if (error.message != null) {
-                    g.write("message", error.message);
+                for (ValidationPhase phase : ValidationPhase.values()) {
+                    if (m.has(phase)) {
+                        g.write(phase.name().toLowerCase() + "_ms", m.getNanos(phase) / 1e6);
+                    }
                 }
                 g.writeEnd();
             }
             g.writeEnd();
+            g.writeEnd();
         } catch (IOException ex) {
             Logger.getLogger(BeaconValidator.class.getName()).log(Level.SEVERE, null, ex);
         }
     }
+
+    static void writeMetric(JsonGenerator g, ValidationMetric metric) {
+        g.writeStartObject();
+        g.write("endpoint", metric.endpoint());
+        g.write("phase", metric.phase().name().toLowerCase());
+        g.write("nanos", metric.nanos());
+        if (metric.bytes() > 0) {
+            g.write("bytes", metric.bytes());
+        }
+        if (metric.records() > 0) {
+            g.write("records", metric.records());
+        }
+        if (metric.retries() > 0) {
+            g.write("retries", metric.retries());
+        }
+        g.writeEnd();
+    }
+
+    static void writeError(JsonGenerator g, BeaconValidationMessage error) {
+        g.writeStartObject();
+        if (error.code != null) {
+            g.write("code", error.code);
+        }
+        if (error.path != null) {
+            g.write("path", error.path);
+        }
+        if (error.location != null) {
+            g.write("location", error.location);
+        }
+        if (error.message != null) {
+            g.write("message", error.message);
+        }
+        g.writeEnd();
+    }
+
+    /**
+     * Gets the first value of the parameter provided in either short or long form.
+     */
+    private static String parameter(Map<String, List<String>> params, 
+            String name, String long_name) {
+        List<String> values = name == null ? null : params.get(name);
+        if (values == null) {
+            values = params.get(long_name);
+        }
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+    
+    private static long number(String value, String name) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException ex) {
+            System.err.println(String.format("invalid %s: %s", name, value));
+            System.exit(1);
+        }
+        return 0;
+    }
     
     private static Map<String, List<String>> parameters(String[] args) {
         TreeMap<String, List<String>> parameters = new TreeMap();        
         List<String> values = null;
         for (String arg : args) {
             switch(arg) {
-                case "-h", "--help", "-f", "--framework", "-o", "--output" -> {
+                case "-h", "--help", "-f", "--framework", "-o", "--output",
+                     "-p", "--parallelism", "-s", "--schema-cache", "--offline",
+                     "-m", "--max-body-size", "-l", "--list", "-w", "--workers",
+                     "-c", "--host-requests", "-r", "--retries", "-t", "--timeout",
+                     "-b", "--budget", "--response-cache",
+                     "--incremental", "--max-age", "-n", "--ndjson",
+                     "-a", "--aggregate", "--endpoint-errors",
+                     "--beacon-errors", "--pass-fail",
+                     "-k", "--sample", "--page-size", "--metrics",
+                     "--jfr", "--server", "--warm-up" -> {
                     values = parameters.get(arg);
                     if (values == null) {
                         values = new ArrayList();
@@ -0,0 +1,158 @@
+/**
+ * *****************************************************************************
+ * Copyright (C) 2024 ELIXIR ES, Spanish National Bioinformatics Institute (INB)
+ * and Barcelona Supercomputing Center (BSC)
+ *
+ * Modifications to the initial code base are copyright of their respective
+ * authors, or their employers as appropriate.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *****************************************************************************
+ */
+
+
+package es.bsc.inb.ga4gh.beacon.validator;
+
+import com.sun.net.httpserver.HttpServer;
+import jakarta.json.Json;
+import jakarta.json.JsonValue;
+import jakarta.json.bind.Jsonb;
+import jakarta.json.stream.JsonGenerator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Loads and initializes the classes used by the validation without 
+ * validating any real beacon.
+ * 
+ * Used by the validation server before accepting jobs and as a training run 
+ * for the class data sharing (AppCDS) archive. The archive is dumped with the 
+ * same 'java -jar' command it is used with (see the beacon-validator launcher):
+ * <pre>
+ * java -XX:ArchiveClassesAtExit=neat-beacon-v2-validator.jsa -jar neat-beacon-v2-validator.jar --warm-up
+ * </pre>
+ * 
+ * @author Dmitry Repchevsky
+ */
+
+public final class BeaconValidatorWarmUp {
+    
+    private final static byte[] EMPTY_OBJECT = "{}".getBytes(StandardCharsets.UTF_8);
+
+    private final static byte[] RESPONSE = 
+            "{\"meta\":{},\"responseSummary\":{\"exists\":false},\"response\":{\"resultSets\":[]}}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Compiles the framework schemas and initializes JSON-B binding of 
+     * the metadata models.
+     * 
+     * @param jsonb JSON-B used to parse metadata responses (null for the shared one)
+     */
+    static void warmUp(Jsonb jsonb) {
+        final BeaconMetadataValidator validator = new BeaconMetadataValidator(jsonb);
+        for (BeaconMetadataSchema schema : BeaconMetadataSchema.values()) {
+            try {
+                validator.validate(schema, JsonValue.EMPTY_JSON_OBJECT);
+                validator.parseMetadata(EMPTY_OBJECT, schema);
+            } catch (Exception ex) {
+                Logger.getLogger(BeaconValidatorWarmUp.class.getName()).log(Level.WARNING, 
+                        "error loading schema {0} {1}", new Object[]{schema.SCHEMA, ex.getMessage()});
+            }
+        }
+
+        try {
+            final URL url = BeaconValidatorWarmUp.class.getClassLoader()
+                    .getResource(BeaconFrameworkSchema.BEACON_RESPONSE_SCHEMA.SCHEMA);
+            if (url != null) {
+                JsonSchemaCache.getInstance().read(url);
+            }
+        } catch (Exception ex) {
+            Logger.getLogger(BeaconValidatorWarmUp.class.getName()).log(Level.WARNING, 
+                    "error loading schema {0} {1}", new Object[]{
+                        BeaconFrameworkSchema.BEACON_RESPONSE_SCHEMA.SCHEMA, ex.getMessage()});
+        }
+    }
+
+    /**
+     * Sends GET and POST requests to the local server and parses the responses,
+     * so HTTP client and JSON parser classes are loaded.
+     */
+    static void request() throws IOException {
+        final HttpServer server = HttpServer.create(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            try (InputStream in = exchange.getRequestBody()) {
+                in.readAllBytes();
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, RESPONSE.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(RESPONSE);
+            }
+        });
+        server.start();
+        try {
+            final URI uri = URI.create(String.format("http://127.0.0.1:%d/api/individuals", 
+                    server.getAddress().getPort()));
+            final ValidationObserver observer = new ValidationErrorsCollector(new ArrayList());
+
+            final HttpResponse<InputStream> get = ValidatorBeaconRequest.getHttpStreamAsync(uri).join();
+            ValidatorBeaconRequest.readJson(get, uri.toString(), observer);
+
+            final HttpResponse<InputStream> post = ValidatorBeaconRequest.postHttpStream(uri, "{}");
+            ValidatorBeaconRequest.readJson(post, uri.toString(), observer);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    /**
+     * Writes the report entries, so JSON generator classes are loaded.
+     */
+    static void report() {
+        final StringWriter writer = new StringWriter();
+        try (JsonGenerator g = Json.createGenerator(writer)) {
+            g.writeStartArray();
+            BeaconValidator.writeError(g, new BeaconValidationMessage(
+                    BeaconValidationErrorType.CONTENT_ERROR, null, "/info", null, "warm up"));
+            BeaconValidator.writeMetric(g, new ValidationMetric("/info", ValidationPhase.TTFB, 0));
+            g.writeEnd();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        final long start = System.nanoTime();
+        warmUp(null);
+        request();
+        report();
+        System.out.println(String.format("warmed up in %d ms", (System.nanoTime() - start) / 1000000));
+        System.exit(0);
+    }
+}
@@ -33,15 +33,24 @@ import java.util.List;
 
 public class ConsoleValidationObserver extends ValidationErrorsCollector {
 
+    /**
+     * Creates the observer that only prints the errors without collecting them.
+     */
+    public ConsoleValidationObserver() {
+        this(null);
+    }
+
     public ConsoleValidationObserver(List<BeaconValidationMessage> errors) {
         super(errors);
     }
     
     @Override
     public void error(BeaconValidationMessage error) {
-        super.error(error);
-        System.out.print("    ");
-        System.out.println(error);
+        if (errors != null) {
+            super.error(error);
+        }
+        // single call, so lines from different threads do not interleave
+        System.out.println("    " + error);
     }
     
     @Override
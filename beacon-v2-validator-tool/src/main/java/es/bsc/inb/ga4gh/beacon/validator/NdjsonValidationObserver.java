@@ -0,0 +1,201 @@
+/**
+ * *****************************************************************************
+ * Copyright (C) 2024 ELIXIR ES, Spanish National Bioinformatics Institute (INB)
+ * and Barcelona Supercomputing Center (BSC)
+ *
+ * Modifications to the initial code base are copyright of their respective
+ * authors, or their employers as appropriate.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *****************************************************************************
+ */
+
+package es.bsc.inb.ga4gh.beacon.validator;
+
+import jakarta.json.Json;
+import jakarta.json.stream.JsonGenerator;
+import jakarta.json.stream.JsonGeneratorFactory;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * ValidationObserver that writes every error (and optionally every metric)
+ * as a separate JSON line (NDJSON) as soon as it is reported, so the errors 
+ * are not kept in memory.
+ * 
+ * The output is buffered and flushed periodically, even when no new errors
+ * are reported (e.g. the validation waits for a slow endpoint).
+ * All the calls are forwarded to the decorated observer.
+ * 
+ * @author Dmitry Repchevsky
+ */
+
+public class NdjsonValidationObserver implements ValidationObserver, Closeable {
+    
+    public final static int BUFFER_SIZE = 64 * 1024;
+    public final static Duration DEFAULT_FLUSH_INTERVAL = Duration.ofSeconds(1);
+    
+    private final static ScheduledExecutorService timer = 
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                final Thread thread = new Thread(r, "ndjson-report-flush");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final ValidationObserver observer;
+    private final long flush_interval;
+
+    private final JsonGeneratorFactory factory;
+    private final FileChannel channel;
+    private final Writer writer;
+    private final ScheduledFuture<?> flusher;
+    
+    private long flushed;
+    private boolean failed;
+    private boolean closed;
+    private volatile boolean write_metrics;
+
+    public NdjsonValidationObserver(Path file, ValidationObserver observer) throws IOException {
+        this(file, observer, DEFAULT_FLUSH_INTERVAL);
+    }
+    
+    /**
+     * @param file the output file
+     * @param observer the observer to forward the calls to
+     * @param flush_interval the maximum time the errors may stay in the buffer
+     * 
+     * @throws IOException 
+     */
+    public NdjsonValidationObserver(Path file, ValidationObserver observer, 
+            Duration flush_interval) throws IOException {
+        this.observer = observer;
+        this.flush_interval = flush_interval.toNanos();
+        
+        factory = Json.createGeneratorFactory(Map.of());
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, 
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), BUFFER_SIZE);
+        flushed = System.nanoTime();
+        
+        final long interval = Math.max(1, flush_interval.toMillis());
+        flusher = timer.scheduleWithFixedDelay(() -> {
+            synchronized(this) {
+                flush(true);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param write_metrics whether to write validation metrics as separate JSON lines
+     */
+    public void setWriteMetrics(boolean write_metrics) {
+        this.write_metrics = write_metrics;
+    }
+
+    @Override
+    public void error(BeaconValidationMessage error) {
+        observer.error(error);
+        
+        final StringWriter line = new StringWriter();
+        try (JsonGenerator g = factory.createGenerator(line)) {
+            BeaconValidator.writeError(g, error);
+        }
+        write(line.toString());
+    }
+
+    @Override
+    public void metric(ValidationMetric metric) {
+        observer.metric(metric);
+
+        if (write_metrics) {
+            final StringWriter line = new StringWriter();
+            try (JsonGenerator g = factory.createGenerator(line)) {
+                BeaconValidator.writeMetric(g, metric);
+            }
+            write(line.toString());
+        }
+    }
+
+    @Override
+    public void message(String message) {
+        observer.message(message);
+        
+        synchronized(this) {
+            flush(false);
+        }
+    }
+    
+    @Override
+    public void endpoint(String endpoint) {
+        observer.endpoint(endpoint);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!closed) {
+            flusher.cancel(false);
+            flush(true);
+            closed = true;
+            writer.close();
+        }
+    }
+    
+    private synchronized void write(String line) {
+        if (!failed && !closed) {
+            try {
+                writer.write(line);
+                writer.write('\n');
+            } catch (IOException ex) {
+                fail(ex);
+            }
+        }
+        flush(false);
+    }
+
+    private void flush(boolean force) {
+        final long now = System.nanoTime();
+        if (!failed && !closed && (force || now - flushed > flush_interval)) {
+            flushed = now;
+            try {
+                writer.flush();
+            } catch (IOException ex) {
+                fail(ex);
+            }
+        }
+    }
+
+    private void fail(IOException ex) {
+        failed = true;
+        Logger.getLogger(NdjsonValidationObserver.class.getName()).log(Level.SEVERE, 
+                "error writing report {0}", ex.getMessage());
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * *****************************************************************************
+ * Copyright (C) 2024 ELIXIR ES, Spanish National Bioinformatics Institute (INB)
+ * and Barcelona Supercomputing Center (BSC)
+ *
+ * Modifications to the initial code base are copyright of their respective
+ * authors, or their employers as appropriate.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *****************************************************************************
+ */
+
+
+package es.bsc.inb.ga4gh.beacon.validator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+import org.graalvm.nativeimage.hosted.Feature;
+import org.graalvm.nativeimage.hosted.RuntimeReflection;
+
+/**
+ * Native image build feature that registers the Beacon framework model 
+ * classes for the reflection, so they may be (de)serialized by JSON-B (Yasson).
+ * 
+ * All the classes found on the image classpath in the model packages are 
+ * registered, so the configuration follows the framework model version.
+ * 
+ * @author Dmitry Repchevsky
+ */
+
+public class BeaconNativeFeature implements Feature {
+
+    public final static String MODEL_PACKAGE = "es/bsc/inb/ga4gh/beacon/framework/model/";
+
+    @Override
+    public String getDescription() {
+        return "registers Beacon framework model classes for JSON-B";
+    }
+
+    @Override
+    public void beforeAnalysis(BeforeAnalysisAccess access) {
+        for (Path path : access.getApplicationClassPath()) {
+            try {
+                if (Files.isDirectory(path)) {
+                    try (Stream<Path> files = Files.walk(path)) {
+                        files.map(file -> path.relativize(file).toString().replace('\\', '/'))
+                             .forEach(name -> register(access, name));
+                    }
+                } else if (Files.isRegularFile(path)) {
+                    try (JarFile jar = new JarFile(path.toFile())) {
+                        for (Enumeration<JarEntry> entries = jar.entries(); entries.hasMoreElements();) {
+                            register(access, entries.nextElement().getName());
+                        }
+                    }
+                }
+            } catch (IOException ex) {
+                System.err.println(String.format("error reading %s: %s", path, ex.getMessage()));
+            }
+        }
+    }
+
+    private static void register(BeforeAnalysisAccess access, String name) {
+        if (name.startsWith(MODEL_PACKAGE) && name.endsWith(".class") && 
+            !name.endsWith("package-info.class")) {
+            final Class<?> clazz = access.findClassByName(
+                    name.substring(0, name.length() - 6).replace('/', '.'));
+            if (clazz != null) {
+                RuntimeReflection.register(clazz);
+                RuntimeReflection.register(clazz.getDeclaredConstructors());
+                RuntimeReflection.register(clazz.getDeclaredMethods());
+                RuntimeReflection.register(clazz.getDeclaredFields());
+            }
+        }
+    }
+}
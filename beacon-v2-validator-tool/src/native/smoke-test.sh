@@ -0,0 +1,58 @@
+#!/bin/sh
+#
+# Smoke test of the validator executable against the local synthetic beacon.
+#
+# usage: smoke-test.sh <validator executable> <synthetic beacon jar> [port]
+#
+
+VALIDATOR=$1
+BEACON_JAR=$2
+PORT=${3:-18080}
+
+if [ ! -x "$VALIDATOR" ] || [ ! -f "$BEACON_JAR" ]; then
+    echo "usage: smoke-test.sh <validator executable> <synthetic beacon jar> [port]"
+    exit 2
+fi
+
+WORK=$(mktemp -d)
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+
+"$JAVA" -jar "$BEACON_JAR" -p "$PORT" --entry-types 3 --records 20 > "$WORK/beacon.log" 2>&1 &
+BEACON=$!
+trap 'kill $BEACON 2>/dev/null; rm -rf "$WORK"' EXIT
+
+# the synthetic beacon prints its endpoint once started
+i=0
+until grep -qs "http" "$WORK/beacon.log"; do
+    i=$((i + 1))
+    if [ $i -gt 100 ] || ! kill -0 $BEACON 2>/dev/null; then
+        echo "synthetic beacon has not started:"
+        cat "$WORK/beacon.log"
+        exit 1
+    fi
+    sleep 0.1
+done
+
+ENDPOINT="http://localhost:$PORT/api"
+
+if ! "$VALIDATOR" -f "$ENDPOINT" -o "$WORK/report.json" > "$WORK/validator.log" 2>&1; then
+    echo "validator failed:"
+    cat "$WORK/validator.log"
+    exit 1
+fi
+
+check() {
+    if ! grep -q "$1" "$2"; then
+        echo "smoke test failed, not found '$1' in:"
+        cat "$2"
+        exit 1
+    fi
+}
+
+# metadata is loaded and bound (the map provides endpoints to validate)
+check "loading metadata: $ENDPOINT/info" "$WORK/validator.log"
+check "validate endpoints: \[individual\]" "$WORK/validator.log"
+check "validate endpoint: $ENDPOINT/individuals" "$WORK/validator.log"
+check "^\[" "$WORK/report.json"
+
+echo "smoke test passed: $ENDPOINT"
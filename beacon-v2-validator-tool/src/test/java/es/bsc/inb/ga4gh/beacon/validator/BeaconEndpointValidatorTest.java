@@ -0,0 +1,151 @@
+/**
+ * *****************************************************************************
+ * Copyright (C) 2024 ELIXIR ES, Spanish National Bioinformatics Institute (INB)
+ * and Barcelona Supercomputing Center (BSC)
+ *
+ * Modifications to the initial code base are copyright of their respective
+ * authors, or their employers as appropriate.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *****************************************************************************
+ */
+
+package es.bsc.inb.ga4gh.beacon.validator;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import org.junit.After;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * End-to-end tests of the endpoints validation against the synthetic beacon.
+ * 
+ * @author Dmitry Repchevsky
+ */
+
+public class BeaconEndpointValidatorTest {
+    
+    private final static int ENTRY_TYPES = 3;
+    private final static int RECORDS = 100;
+    
+    // pages are large enough to be validated in parallel
+    private final static int PAGE_SIZE = 50;
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void tearDown() {
+        ValidationFingerprints.setDefault(null);
+    }
+
+    @Test
+    public void testParallelValidationOrder() throws IOException {
+        try (SyntheticBeacon beacon = new SyntheticBeacon(configuration(1, 0.2))) {
+            final String endpoint = beacon.start();
+
+            final ValidationReport sequential = ValidationReport.validate(
+                    endpoint, 1, RECORDS, PAGE_SIZE, ErrorBudget.unlimited());
+            assertTrue("no invalid records found", sequential.errors > 0);
+
+            for (int i = 0; i < 3; i++) {
+                final ValidationReport parallel = ValidationReport.validate(
+                        endpoint, 4, RECORDS, PAGE_SIZE, ErrorBudget.unlimited());
+                assertEquals(sequential.report, parallel.report);
+            }
+        }
+    }
+
+    @Test
+    public void testErrorBudget() throws IOException {
+        try (SyntheticBeacon beacon = new SyntheticBeacon(configuration(1, 0.5))) {
+            final String endpoint = beacon.start();
+
+            final ValidationReport unlimited = ValidationReport.validate(
+                    endpoint, 1, RECORDS, PAGE_SIZE, ErrorBudget.unlimited());
+            assertTrue(unlimited.errors > 5);
+            final long requests = beacon.getRequests();
+            
+            // concurrently validated endpoint sets may slightly overrun the budget
+            final ErrorBudget budget = new ErrorBudget(3, 5);
+            final ValidationReport limited = ValidationReport.validate(
+                    endpoint, 1, RECORDS, PAGE_SIZE, budget);
+            assertTrue(limited.errors > 0);
+            assertTrue(limited.errors <= 5);
+            assertEquals(limited.errors, budget.getErrors());
+            
+            final long before = beacon.getRequests();
+            final ValidationReport pass_fail = ValidationReport.validate(
+                    endpoint, 1, RECORDS, PAGE_SIZE, ErrorBudget.passFail());
+            assertEquals(1, pass_fail.errors);
+            
+            // the validation stops instead of just hiding the errors
+            assertTrue(beacon.getRequests() - before < requests);
+        }
+    }
+
+    @Test
+    public void testFingerprints() throws IOException {
+        ValidationFingerprints.setDefault(new ValidationFingerprints(
+                folder.newFolder().toPath()));
+        
+        final InetSocketAddress address;
+        final ValidationReport first;
+        try (SyntheticBeacon beacon = new SyntheticBeacon(configuration(1, 0.2))) {
+            final String endpoint = beacon.start();
+            final URI uri = URI.create(endpoint);
+            address = new InetSocketAddress(uri.getHost(), uri.getPort());
+            
+            first = ValidationReport.validate(
+                    endpoint, 1, RECORDS, PAGE_SIZE, ErrorBudget.unlimited());
+            assertEquals(0, first.count("  unchanged"));
+
+            final long requests = beacon.getRequests();
+            final ValidationReport second = ValidationReport.validate(
+                    endpoint, 4, RECORDS, PAGE_SIZE, ErrorBudget.unlimited());
+            assertEquals(ENTRY_TYPES, second.count("  unchanged"));
+            assertEquals(first.report, second.report);
+            
+            // only metadata, schemas and root endpoints are requested
+            assertTrue(beacon.getRequests() - requests < requests);
+        }
+
+        // the same beacon with other records invalidates the fingerprints
+        try (SyntheticBeacon beacon = new SyntheticBeacon(configuration(2, 0.2))) {
+            final String endpoint = beacon.start(address);
+            final ValidationReport third = ValidationReport.validate(
+                    endpoint, 1, RECORDS, PAGE_SIZE, ErrorBudget.unlimited());
+            assertEquals(0, third.count("  unchanged"));
+            assertNotEquals(first.report, third.report);
+        }
+    }
+    
+    private static SyntheticBeaconConfiguration configuration(long seed, 
+            double invalid_record_rate) {
+        final SyntheticBeaconConfiguration configuration = new SyntheticBeaconConfiguration();
+        configuration.setEntryTypes(ENTRY_TYPES);
+        configuration.setRecords(RECORDS);
+        configuration.setInvalidRecordRate(invalid_record_rate);
+        configuration.setSeed(seed);
+        return configuration;
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * *****************************************************************************
+ * Copyright (C) 2024 ELIXIR ES, Spanish National Bioinformatics Institute (INB)
+ * and Barcelona Supercomputing Center (BSC)
+ *
+ * Modifications to the initial code base are copyright of their respective
+ * authors, or their employers as appropriate.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *****************************************************************************
+ */
+
+package es.bsc.inb.ga4gh.beacon.validator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The validation observer that keeps the reported endpoints and errors 
+ * (in the reported order) and the messages for the tests' assertions.
+ * Metrics and the throughput are ignored as they differ from run to run.
+ * 
+ * @author Dmitry Repchevsky
+ */
+
+class ValidationReport implements ValidationObserver {
+    
+    final List<String> report = new ArrayList();
+    final List<String> messages = new ArrayList();
+    
+    int errors;
+
+    @Override
+    public synchronized void error(BeaconValidationMessage error) {
+        errors++;
+        report.add("error: " + error.type + " " + error);
+    }
+
+    @Override
+    public synchronized void message(String message) {
+        messages.add(message);
+    }
+
+    @Override
+    public synchronized void endpoint(String endpoint) {
+        report.add("endpoint: " + endpoint);
+    }
+    
+    /**
+     * @return the number of messages that start with the prefix
+     */
+    synchronized long count(String prefix) {
+        return messages.stream().filter(m -> m.startsWith(prefix)).count();
+    }
+
+    /**
+     * Validates the beacon the same way the command line validator does.
+     * 
+     * @param endpoint the beacon API endpoint
+     * @param parallelism number of concurrently validated endpoint sets
+     * @param sampling the number of records to validate per entry type
+     * @param page_size the number of records requested at once
+     * @param budget the validation errors budget
+     * 
+     * @return the validation report
+     */
+    static ValidationReport validate(String endpoint, int parallelism, 
+            int sampling, int page_size, ErrorBudget budget) {
+        final ValidationReport report = new ValidationReport();
+        final ValidationDeadline deadline = ValidationDeadline.unlimited();
+        
+        final BeaconMetadataModel model = BeaconMetadataModel.load(
+                endpoint, report, deadline, budget);
+        final BeaconEndpointValidator validator = new BeaconEndpointValidator(
+                model, parallelism, deadline, budget);
+        validator.setSampling(sampling, page_size);
+        validator.validate(endpoint, report);
+        
+        return report;
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * *****************************************************************************
+ * Copyright (C) 2024 ELIXIR ES, Spanish National Bioinformatics Institute (INB)
+ * and Barcelona Supercomputing Center (BSC)
+ *
+ * Modifications to the initial code base are copyright of their respective
+ * authors, or their employers as appropriate.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *****************************************************************************
+ */
+
+package es.bsc.inb.ga4gh.beacon.validator;
+
+import java.io.IOException;
+import java.time.Duration;
+import org.junit.After;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * End-to-end tests of the per host requests limit and the retries 
+ * against the synthetic beacon.
+ * 
+ * @author Dmitry Repchevsky
+ */
+
+public class ValidatorBeaconRequestTest {
+    
+    @After
+    public void tearDown() {
+        ValidatorBeaconRequest.setMaxHostRequests(ValidatorBeaconRequest.DEFAULT_MAX_HOST_REQUESTS);
+        ValidatorBeaconRequest.setMaxRetries(ValidatorBeaconRequest.DEFAULT_MAX_RETRIES);
+        ValidatorBeaconRequest.setRetryDelay(ValidatorBeaconRequest.DEFAULT_RETRY_DELAY, 
+                ValidatorBeaconRequest.DEFAULT_MAX_RETRY_DELAY);
+    }
+
+    @Test
+    public void testMaxHostRequests() throws IOException {
+        final SyntheticBeaconConfiguration configuration = new SyntheticBeaconConfiguration();
+        configuration.setEntryTypes(4);
+        configuration.setRecords(100);
+        configuration.setLatency(Duration.ofMillis(20));
+
+        ValidatorBeaconRequest.setMaxHostRequests(2);
+        try (SyntheticBeacon beacon = new SyntheticBeacon(configuration)) {
+            final String endpoint = beacon.start();
+            
+            // endpoint sets and sampled pages compete for the same host
+            ValidationReport.validate(endpoint, 8, 100, 10, ErrorBudget.unlimited());
+            assertTrue(beacon.getMaxActiveRequests() > 0);
+            assertTrue(beacon.getMaxActiveRequests() <= 2);
+        }
+    }
+
+    @Test
+    public void testRetries() throws IOException {
+        final SyntheticBeaconConfiguration configuration = new SyntheticBeaconConfiguration();
+        configuration.setErrorRate(1);
+        configuration.setErrorStatus(503);
+
+        ValidatorBeaconRequest.setRetryDelay(Duration.ofMillis(1), Duration.ofMillis(10));
+
+        ValidatorBeaconRequest.setMaxRetries(0);
+        final long failed;
+        try (SyntheticBeacon beacon = new SyntheticBeacon(configuration)) {
+            final ValidationReport report = ValidationReport.validate(
+                    beacon.start(), 1, 0, 1, ErrorBudget.unlimited());
+            failed = beacon.getErrors();
+            assertTrue(failed > 0);
+            assertTrue(report.errors > 0);
+        }
+
+        // every failed request is sent once more for every retry
+        ValidatorBeaconRequest.setMaxRetries(2);
+        try (SyntheticBeacon beacon = new SyntheticBeacon(configuration)) {
+            ValidationReport.validate(beacon.start(), 1, 0, 1, ErrorBudget.unlimited());
+            assertEquals(3 * failed, beacon.getErrors());
+        }
+        
+        // 500 is not retried
+        configuration.setErrorStatus(500);
+        try (SyntheticBeacon beacon = new SyntheticBeacon(configuration)) {
+            ValidationReport.validate(beacon.start(), 1, 0, 1, ErrorBudget.unlimited());
+            assertEquals(failed, beacon.getErrors());
+        }
+    }
+}